@@ -1,66 +1,240 @@
 package app;
 
 import graphics.*;
+import journal.EventJournal;
+import journal.EventLog;
+import journal.JournalReader;
+import journal.RotatingFileSink;
+import metrics.MetricsSnapshotter;
+import models.AcquisitionStrategy;
+import models.ExecutionMode;
+import models.Hall;
+import models.SimulationClock;
+import models.Timing;
+import net.TelemetryServer;
+
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 
 public class DiningPhilosophersApp extends JFrame
 {
     private static final int INITIAL_N = 5;
+    public static final int MIN_SEATS = 2;
     private final DinerPanel dp;
     private final MonitorPanel mp;
 
     private int n;
+    private final AcquisitionStrategy strategy;
+    private final JournalReader replay; // null when the philosophers run live
+    private final String attach = System.getProperty("attach"); // host:port of a chopstick server to observe
     private static final int FRAME_WIDTH = 1300;
     private static final int FRAME_HEIGHT = 900;
 
     public MonitorPanel getMonitor() { return mp; }
+    public SimulationClock getClock() { return dp.getClock(); }
+
+    public DiningPhilosophersApp(int n, ExecutionMode executionMode, AcquisitionStrategy strategy, RenderMode renderMode)
+    {
+        this(n, executionMode, strategy, renderMode, null);
+    }
 
-    public DiningPhilosophersApp(int n)
+    // With a journal to replay, the philosophers don't run: the journal drives the panels
+    public DiningPhilosophersApp(int n, ExecutionMode executionMode, AcquisitionStrategy strategy, RenderMode renderMode,
+                                 JournalReader replay)
     {
         this.n = n;
+        this.strategy = strategy;
+        this.replay = replay;
 
         setTitle("Dining Philosophers App");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(FRAME_WIDTH, FRAME_HEIGHT);
         setLayout(new BorderLayout());
 
-        dp = new DinerPanel(this, n);
+        dp = new DinerPanel(this, n, executionMode, strategy, Integer.getInteger("fps", DinerPanel.DEFAULT_FRAME_RATE),
+                renderMode);
         add(dp.getPanel(), BorderLayout.CENTER);
+        dp.getClock().setSpeed(Double.parseDouble(System.getProperty("speed", "1")));
 
-        mp = new MonitorPanel(this, n);
+        mp = new MonitorPanel(this, n, Integer.getInteger("logRetention", MonitorPanel.DEFAULT_LOG_RETENTION));
         add(mp.getPanel(), BorderLayout.EAST);
 
-        dp.startAnimation();
+        // Metrics over JMX always; -DmetricsFile also writes a snapshot every -DmetricsPeriod ms
+        dp.getMetrics().register("table");
+        String metricsFile = System.getProperty("metricsFile");
+        if (metricsFile != null)
+            new MetricsSnapshotter(dp.getMetrics(), Paths.get(metricsFile), Long.getLong("metricsPeriod", 5000)).start();
+
+        if (replay != null)
+        {
+            JournalReplay player = new JournalReplay(replay, dp, mp);
+            add(player.getPanel(), BorderLayout.SOUTH);
+            player.start();
+        }
+        else if (attach != null)
+        {
+            // The philosophers run in other processes, the server's stream drives the panels
+            int colon = attach.lastIndexOf(':');
+            new RemoteObserver(new InetSocketAddress(attach.substring(0, colon), Integer.parseInt(attach.substring(colon + 1))),
+                    dp, mp).start();
+        }
+        else
+        {
+            // -Djournal records every event to a binary journal, for -Dreplay later
+            String journalFile = System.getProperty("journal");
+            if (journalFile != null) startJournal(journalFile);
+            String logFile = System.getProperty("logFile");
+            if (logFile != null) startLogFile(logFile);
+            Long seed = Long.getLong("seed");
+            if (seed != null) dp.setSeed(seed);
+            Integer telemetryPort = Integer.getInteger("telemetry");
+            if (telemetryPort != null) startTelemetry(telemetryPort);
+            dp.startAnimation();
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(dp.getSprites().getStats())));
     }
 
-    public void addPhilosopher()
+    private void startTelemetry(int port)
     {
-        if (n == 10) return;
-        dp.addPhilosopher();
-        n++;
-        mp.setN(n);
-        dp.setN(n);
+        try
+        {
+            TelemetryServer telemetry = new TelemetryServer(new InetSocketAddress(port),
+                    Long.getLong("telemetryPeriod", 100));
+            dp.setTelemetry(telemetry);
+            telemetry.start();
+            System.out.println("Telemetry on port " + telemetry.getPort());
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not start telemetry: " + e.getMessage());
+        }
     }
 
-    public void remPhilosopher() throws InterruptedException {
-        if (n == 5) return;
-        dp.remPhilosopher();
-        n--;
-        mp.setN(n);
-        dp.setN(n);
+    private void startLogFile(String file)
+    {
+        try
+        {
+            EventLog log = dp.getEventLog();
+            log.setFile(new RotatingFileSink(Paths.get(file), Long.getLong("logMaxBytes", 10L << 20),
+                    Integer.getInteger("logFiles", 5), EventLog.parseLevel(System.getProperty("logLevel", "info"))));
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close));
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not open the event log: " + e.getMessage());
+        }
     }
 
-    public void remPhilosopherFromStatus(int status)
+    private void startJournal(String file)
     {
-        mp.remPhilosopherFromStatus(status);
+        try
+        {
+            EventJournal journal = EventJournal.create(Paths.get(file));
+            dp.setJournal(journal);
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            {
+                try
+                {
+                    journal.close();
+                }
+                catch (IOException e)
+                {
+                    System.out.println("Could not close the event journal: " + e.getMessage());
+                }
+            }));
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not open the event journal: " + e.getMessage());
+        }
+    }
+
+    public boolean isResizable() { return replay == null && attach == null && strategy.isResizable(); }
+    public int getN() { return n; }
+
+    // EDT. Any number of seats at once, down to MIN_SEATS
+    public void resize(int target)
+    {
+        target = Math.max(MIN_SEATS, target);
+        if (target == n || !isResizable()) return;
+        mp.setN(target);
+        dp.resize(target);
+        n = target;
+    }
+
+    private static void showHall(int tables, int seats, int shards, String strategy, ExecutionMode executionMode)
+    {
+        SimulationClock clock = new SimulationClock();
+        clock.setSpeed(Double.parseDouble(System.getProperty("speed", "1")));
+        Hall hall = new Hall(tables, seats, shards, strategy, Timing.DEFAULT.withClock(clock), executionMode);
+        hall.register("hall");
+
+        JFrame frame = new JFrame("Dining Philosophers Hall");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(FRAME_WIDTH, FRAME_HEIGHT);
+        HallPanel panel = new HallPanel(hall);
+        frame.add(panel.getPanel());
+        frame.setVisible(true);
+        panel.fit();
+        hall.start();
     }
 
     public static void main(String[] args)
     {
+        // Optional arguments: thread type (platform, virtual) and acquisition
+        // strategy (hierarchy, waiter, ticket, backoff, hygienic). -Dseats sets
+        // the table size and -Drender=canvas draws it without per-seat labels,
+        // which is what to use for more than a few dozen seats. -Dspeed starts
+        // the simulation clock faster or slower (0.1 to 1000). -Djournal=file
+        // records a run and -Dreplay=file plays one back. -Dseed=S makes the
+        // think and eat times the same from run to run. -Dhall=T opens an
+        // overview of T tables of -Dseats instead, split into -Dshards shards.
+        // -Dattach=host:port shows a chopstick server's table (--mode server).
+        // -Dtelemetry=port streams the table to --mode watch clients, a
+        // snapshot every -DtelemetryPeriod ms. -DlogFile=file writes the log
+        // lines of at least -DlogLevel (debug, info) there, rotating through
+        // -DlogFiles files of -DlogMaxBytes.
+        Integer tables = Integer.getInteger("hall");
+        if (tables != null)
+        {
+            int seats = Math.max(MIN_SEATS, Integer.getInteger("seats", INITIAL_N));
+            int shards = Integer.getInteger("shards", Runtime.getRuntime().availableProcessors());
+            ExecutionMode executionMode = args.length > 0 ? ExecutionMode.parse(args[0]) : ExecutionMode.PLATFORM;
+            String strategy = args.length > 1 ? args[1] : "hierarchy";
+            SwingUtilities.invokeLater(() -> showHall(tables, seats, shards, strategy, executionMode));
+            return;
+        }
+
+        JournalReader replay = null;
+        if (System.getProperty("replay") != null)
+        {
+            try
+            {
+                replay = new JournalReader(Paths.get(System.getProperty("replay")));
+            }
+            catch (IOException e)
+            {
+                System.out.println("Could not open the journal to replay: " + e.getMessage());
+                return;
+            }
+        }
+
+        int seats = replay != null ? JournalReplay.initialSeats(replay) : 0;
+        int n = Math.max(MIN_SEATS, seats > 0 ? seats : Integer.getInteger("seats", INITIAL_N));
+        RenderMode renderMode = RenderMode.parse(System.getProperty("render", n > 50 ? "canvas" : "labels"));
+        ExecutionMode executionMode = args.length > 0 ? ExecutionMode.parse(args[0]) : ExecutionMode.PLATFORM;
+        AcquisitionStrategy strategy = AcquisitionStrategy.create(args.length > 1 ? args[1] : "hierarchy", n);
+        if (!executionMode.isSupported())
+            System.out.println("Virtual threads are not available on this JDK, using platform threads.");
+
+        JournalReader journal = replay;
         SwingUtilities.invokeLater(() ->
         {
-            new DiningPhilosophersApp(INITIAL_N).setVisible(true);
+            new DiningPhilosophersApp(n, executionMode, strategy, renderMode, journal).setVisible(true);
         });
     }
 }
@@ -0,0 +1,524 @@
+package app;
+
+import journal.EventJournal;
+import journal.EventLog;
+import journal.RotatingFileSink;
+import metrics.ShardMetrics;
+import models.AcquisitionStrategy;
+import models.ConflictGraph;
+import models.Distribution;
+import models.ExecutionMode;
+import models.GraphArbiter;
+import models.Hall;
+import models.Timing;
+import net.ChopstickServer;
+import net.RemoteTable;
+import net.TelemetryClient;
+import net.TelemetryServer;
+import simulation.BenchmarkReport;
+import simulation.GraphBenchmark;
+import simulation.HotPathBenchmark;
+import simulation.ParameterSweep;
+import simulation.SimulationEngine;
+import simulation.StoreBenchmark;
+import simulation.StoreKind;
+import simulation.StrategyBenchmark;
+import simulation.ThreadedBenchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Headless entry point, no Swing needed:
+//   java app.DiningPhilosophersCli --seats 100000 --hours 2 --seed 42
+//   java app.DiningPhilosophersCli --mode threads --seats 100000 --threads both --seconds 30
+//   java app.DiningPhilosophersCli --mode store --chopsticks 10000000 --store all
+//   java app.DiningPhilosophersCli --mode strategies --seats 50 --scale 0.01 --seconds 10
+//   java app.DiningPhilosophersCli --mode strategies --strategy backoff --seed 42 --deterministic --journal run.dpj
+//   java app.DiningPhilosophersCli --mode bench --out bench.json --baseline bench/baseline.json
+//   java app.DiningPhilosophersCli --mode sweep --seats 5,50,500 --strategy all --out sweep.csv
+//   java app.DiningPhilosophersCli --mode hall --tables 256 --seats 5 --shards 4 --migrations 10
+//   java app.DiningPhilosophersCli --mode distributed --seats 500 --processes 100 --seconds 30
+//   java app.DiningPhilosophersCli --mode strategies --seats 1000 --seconds 60 --telemetry 7072
+//   java app.DiningPhilosophersCli --mode watch --port 7072 --every 500
+//   java app.DiningPhilosophersCli --mode graph --topology random --diners 1000 --resources 1500 --k 4
+public class DiningPhilosophersCli
+{
+    private static final int DEFAULT_SEATS = 5;
+    private static final double DEFAULT_HOURS = 1;
+    private static final int DEFAULT_SECONDS = 20;
+    private static final int DEFAULT_CHOPSTICKS = 1_000_000;
+    private static final int DEFAULT_BENCH_WORKERS = 2; // Fixed, not the CPU count, so runs compare across machines
+    private static final int EVENT_LOG_CAPACITY = 1 << 16; // Records per ring of --log
+    private static final int EVENT_LOG_PERIOD = 50; // ms between --log drains
+
+    public static void main(String[] args) throws InterruptedException, IOException
+    {
+        Map<String, String> options;
+        try
+        {
+            options = parse(args);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            usage();
+            return;
+        }
+
+        if (options.containsKey("help"))
+        {
+            usage();
+            return;
+        }
+
+        switch (options.getOrDefault("mode", "simulate"))
+        {
+            case "simulate": simulate(options); break;
+            case "threads": threads(options); break;
+            case "store": store(options); break;
+            case "strategies": strategies(options); break;
+            case "bench": System.exit(bench(options) ? 0 : 1); break; // The monitor's refresh timer keeps the EDT alive
+            case "sweep": sweep(options); break;
+            case "hall": hall(options); break;
+            case "server": server(options); break;
+            case "client": client(options); break;
+            case "distributed": distributed(options); break;
+            case "watch": watch(options); break;
+            case "graph": graph(options); break;
+            default: usage();
+        }
+    }
+
+    // Discrete-event run on a virtual clock
+    private static void simulate(Map<String, String> options)
+    {
+        int seats = intOption(options, "seats", DEFAULT_SEATS);
+        double hours = Double.parseDouble(options.getOrDefault("hours", String.valueOf(DEFAULT_HOURS)));
+        long seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime())));
+        StoreKind store = StoreKind.parse(options.getOrDefault("store", "array"));
+
+        System.out.println("Simulating " + seats + " philosophers for " + hours + " h (seed " + seed + ", "
+                + store.name().toLowerCase() + " store)");
+        SimulationEngine engine = new SimulationEngine(seats, seed, store);
+        engine.run((long) (hours * 3600 * 1000)).print(System.out);
+    }
+
+    // Real Philosopher threads in wall-clock time, platform and/or virtual
+    private static void threads(Map<String, String> options) throws InterruptedException
+    {
+        int seats = intOption(options, "seats", DEFAULT_SEATS);
+        int seconds = intOption(options, "seconds", DEFAULT_SECONDS);
+        String threads = options.getOrDefault("threads", "both");
+
+        ExecutionMode[] modes = threads.equals("both")
+                ? new ExecutionMode[] { ExecutionMode.VIRTUAL, ExecutionMode.PLATFORM }
+                : new ExecutionMode[] { ExecutionMode.parse(threads) };
+
+        ThreadedBenchmark.Result.printHeader(System.out);
+        for (ExecutionMode mode : modes)
+        {
+            if (!mode.isSupported())
+            {
+                System.out.println(mode.name().toLowerCase() + ": not available on this JDK, skipped");
+                continue;
+            }
+            new ThreadedBenchmark(seats, mode).run(seconds * 1000L).print(System.out);
+        }
+    }
+
+    // Chopstick objects vs the primitive ChopstickTable
+    private static void store(Map<String, String> options) throws InterruptedException
+    {
+        int chopsticks = intOption(options, "chopsticks", DEFAULT_CHOPSTICKS);
+        int workers = intOption(options, "workers", Runtime.getRuntime().availableProcessors());
+        int seconds = intOption(options, "seconds", 5);
+        String store = options.getOrDefault("store", "all");
+
+        StoreKind[] stores = store.equals("all")
+                ? StoreKind.values()
+                : new StoreKind[] { StoreKind.parse(store) };
+
+        StoreBenchmark.printHeader(System.out);
+        for (StoreKind s : stores)
+            new StoreBenchmark(s, chopsticks, workers).run(seconds * 1000L, System.out);
+    }
+
+    // Every acquisition strategy (or just --strategy) on the same table.
+    // --deterministic runs in simulated time and repeats exactly for a --seed;
+    // --journal records each strategy's run (file.strategy for several).
+    private static void strategies(Map<String, String> options) throws InterruptedException, IOException
+    {
+        int seats = intOption(options, "seats", DEFAULT_SEATS);
+        int seconds = intOption(options, "seconds", DEFAULT_SECONDS);
+        double scale = Double.parseDouble(options.getOrDefault("scale", "0.01"));
+        ExecutionMode mode = ExecutionMode.parse(options.getOrDefault("threads", "platform"));
+        String strategy = options.getOrDefault("strategy", "all");
+        long seed = seedOption(options);
+        boolean deterministic = options.containsKey("deterministic");
+
+        String[] names = strategy.equals("all") ? AcquisitionStrategy.NAMES : new String[] { strategy };
+        if (deterministic) names = deterministicOnly(names, seats);
+        System.out.println((deterministic ? "Deterministic run" : "Run") + ", seed " + seed);
+        TelemetryServer telemetry = null;
+        if (options.containsKey("telemetry"))
+        {
+            telemetry = new TelemetryServer(new InetSocketAddress(intOption(options, "telemetry", 0)),
+                    intOption(options, "telemetry-period", 100));
+            telemetry.start();
+            System.out.println("Telemetry on port " + telemetry.getPort());
+        }
+        EventLog log = null;
+        if (options.containsKey("log"))
+        {
+            log = new EventLog(EVENT_LOG_CAPACITY, EVENT_LOG_PERIOD);
+            log.setFile(new RotatingFileSink(Paths.get(options.get("log")),
+                    intOption(options, "log-max-mb", 10) * (1L << 20), intOption(options, "log-files", 5),
+                    EventLog.parseLevel(options.getOrDefault("log-level", "info"))));
+            log.start();
+        }
+        StrategyBenchmark.printHeader(System.out);
+        for (String name : names)
+        {
+            StrategyBenchmark benchmark = new StrategyBenchmark(seats, name, Timing.DEFAULT.scaled(scale), mode, seed,
+                    deterministic);
+            EventJournal journal = EventJournal.NONE;
+            if (options.containsKey("journal"))
+            {
+                journal = EventJournal.create(Paths.get(options.get("journal") + (names.length > 1 ? "." + name : "")));
+                benchmark.setJournal(journal);
+            }
+            if (telemetry != null) benchmark.setTelemetry(telemetry);
+            if (log != null) benchmark.setEventLog(log);
+            benchmark.run(seconds * 1000L, System.out);
+            journal.close();
+        }
+        if (telemetry != null) telemetry.stop();
+        if (log != null)
+        {
+            log.close();
+            if (log.getDropped() > 0) System.out.println("Event log dropped " + log.getDropped() + " records");
+        }
+    }
+
+    // Every arbiter on the same conflict graph and seed
+    private static void graph(Map<String, String> options) throws InterruptedException
+    {
+        int diners = intOption(options, "diners", 100);
+        int seconds = intOption(options, "seconds", DEFAULT_SECONDS);
+        double scale = Double.parseDouble(options.getOrDefault("scale", "0.01"));
+        ExecutionMode mode = ExecutionMode.parse(options.getOrDefault("threads", "platform"));
+        String arbiter = options.getOrDefault("arbiter", "all");
+        String topology = options.getOrDefault("topology", "all");
+        long seed = seedOption(options);
+
+        String[] arbiters = arbiter.equals("all") ? GraphArbiter.NAMES : arbiter.split(",");
+        String[] topologies = topology.equals("all") ? ConflictGraph.TOPOLOGIES : topology.split(",");
+        System.out.println("Run, seed " + seed);
+        GraphBenchmark.printHeader(System.out);
+        for (String name : topologies)
+        {
+            ConflictGraph graph = ConflictGraph.create(name, diners, intOption(options, "resources", diners),
+                    intOption(options, "k", 3), seed);
+            for (String a : arbiters)
+                new GraphBenchmark(graph, a, Timing.DEFAULT.scaled(scale), mode, seed).run(seconds * 1000L, System.out);
+        }
+    }
+
+    // Hot-path microbenchmarks; false if any falls too far below the baseline
+    private static boolean bench(Map<String, String> options) throws InterruptedException, IOException
+    {
+        int workers = intOption(options, "workers", DEFAULT_BENCH_WORKERS);
+        Path baseline = options.containsKey("baseline") ? Paths.get(options.get("baseline")) : null;
+        if (baseline != null && !Files.exists(baseline))
+        {
+            System.out.println("No baseline at " + baseline + ", nothing to compare");
+            baseline = null;
+        }
+
+        // Thread counts are part of the results, so only a run with the same workers compares
+        if (baseline != null)
+        {
+            int baselineWorkers = BenchmarkReport.readWorkers(baseline);
+            if (baselineWorkers != workers)
+            {
+                System.out.println("Not comparing: the baseline ran with "
+                        + (baselineWorkers < 0 ? "an unrecorded number of workers" : "--workers " + baselineWorkers)
+                        + ", this run with --workers " + workers);
+                return false;
+            }
+            int baselineCpus = BenchmarkReport.readCpus(baseline);
+            if (baselineCpus != Runtime.getRuntime().availableProcessors())
+                System.out.println("Note: the baseline ran on " + baselineCpus + " CPUs, this machine has "
+                        + Runtime.getRuntime().availableProcessors());
+        }
+
+        HotPathBenchmark benchmark = new HotPathBenchmark(
+                intOption(options, "warmups", 2),
+                intOption(options, "iterations", 5),
+                intOption(options, "iteration-ms", 1000),
+                workers,
+                intOption(options, "work", 1));
+        List<BenchmarkReport.Entry> results = benchmark.run(System.out);
+
+        Path out = Paths.get(options.getOrDefault("out", "bench-results.json"));
+        BenchmarkReport.write(results, workers, out);
+        System.out.println("Results written to " + out);
+        for (String failure : benchmark.getFailures()) System.out.println("Failed: " + failure);
+        if (baseline == null) return benchmark.getFailures().isEmpty();
+
+        double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.2"));
+        System.out.println();
+        int regressions = BenchmarkReport.compare(results, BenchmarkReport.read(baseline), tolerance, System.out);
+        if (regressions > 0)
+            System.out.println(regressions + " benchmark(s) regressed by more than " + (int) (tolerance * 100) + "%");
+        return regressions == 0 && benchmark.getFailures().isEmpty();
+    }
+
+    // Every combination of the comma-separated lists, tables run in parallel
+    private static void sweep(Map<String, String> options) throws IOException
+    {
+        String[] seatList = options.getOrDefault("seats", "5,50").split(",");
+        int[] seats = new int[seatList.length];
+        for (int i = 0; i < seats.length; ++i) seats[i] = Integer.parseInt(seatList[i].trim());
+
+        String strategy = options.getOrDefault("strategy", "all");
+        String[] strategies = strategy.equals("all") ? AcquisitionStrategy.NAMES : strategy.split(",");
+        long seed = seedOption(options);
+        boolean deterministic = options.containsKey("deterministic");
+        if (deterministic) strategies = deterministicOnly(strategies, 2);
+
+        String[] distributionList = options.getOrDefault("distributions", "uniform,exponential").split(",");
+        Distribution[] distributions = new Distribution[distributionList.length];
+        for (int i = 0; i < distributions.length; ++i) distributions[i] = Distribution.parse(distributionList[i].trim());
+
+        String[] ratioList = options.getOrDefault("eat-ratios", "1").split(",");
+        double[] eatRatios = new double[ratioList.length];
+        for (int i = 0; i < eatRatios.length; ++i) eatRatios[i] = Double.parseDouble(ratioList[i].trim());
+
+        List<ParameterSweep.Config> configs = ParameterSweep.grid(seats, strategies, distributions, eatRatios,
+                intOption(options, "repeats", 1));
+        int parallel = intOption(options, "parallel", Runtime.getRuntime().availableProcessors());
+        System.out.println("Sweeping " + configs.size() + " configurations, " + parallel + " at a time, seed " + seed);
+
+        ParameterSweep sweep = new ParameterSweep(configs, intOption(options, "seconds", 600) * 1000L,
+                Double.parseDouble(options.getOrDefault("speed", "100")),
+                ExecutionMode.parse(options.getOrDefault("threads", "platform")), parallel, seed, deterministic);
+        ParameterSweep.Result[] results = sweep.run(System.out);
+
+        Path out = Paths.get(options.getOrDefault("out", "sweep.csv"));
+        ParameterSweep.writeCsv(results, out);
+        System.out.println("Results written to " + out);
+    }
+
+    // A chopstick server for --seats philosophers in other processes, for
+    // --seconds (forever without). Watch it with -Dattach=host:port.
+    private static void server(Map<String, String> options) throws IOException, InterruptedException
+    {
+        int seats = intOption(options, "seats", DEFAULT_SEATS);
+        ChopstickServer server = new ChopstickServer(seats,
+                new InetSocketAddress(options.getOrDefault("host", "localhost"), intOption(options, "port", 7070)));
+        System.out.println("Chopstick server for " + seats + " seats on port " + server.getPort());
+
+        Thread thread = new Thread(server, "Chopstick-Server");
+        thread.start();
+        if (!options.containsKey("seconds")) thread.join();
+
+        Thread.sleep(intOption(options, "seconds", 0) * 1000L);
+        server.stop();
+        thread.join();
+        printServerStats(server);
+    }
+
+    // Seats --from .. --from + --count - 1 of a chopstick server's table
+    private static void client(Map<String, String> options) throws IOException, InterruptedException
+    {
+        int seats = intOption(options, "seats", DEFAULT_SEATS);
+        RemoteTable table = new RemoteTable(
+                new InetSocketAddress(options.getOrDefault("host", "localhost"), intOption(options, "port", 7070)),
+                seats, intOption(options, "from", 0), intOption(options, "count", seats),
+                Timing.DEFAULT.scaled(Double.parseDouble(options.getOrDefault("scale", "0.01"))),
+                ExecutionMode.parse(options.getOrDefault("threads", "platform")));
+        if (!options.containsKey("no-header")) RemoteTable.printHeader(System.out);
+        table.run(intOption(options, "seconds", DEFAULT_SECONDS) * 1000L, System.out);
+    }
+
+    // A server here and --processes client JVMs sharing the seats
+    private static void distributed(Map<String, String> options) throws IOException, InterruptedException
+    {
+        int seats = intOption(options, "seats", 50);
+        int processes = Math.max(1, Math.min(intOption(options, "processes", 10), seats));
+        int seconds = intOption(options, "seconds", DEFAULT_SECONDS);
+        ChopstickServer server = new ChopstickServer(seats, new InetSocketAddress("localhost", intOption(options, "port", 0)));
+        Thread serverThread = new Thread(server, "Chopstick-Server");
+        serverThread.start();
+        System.out.println(seats + " seats in " + processes + " processes, server on port " + server.getPort());
+
+        // Small JVMs, so hundreds fit on one box
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process[] clients = new Process[processes];
+        for (int i = 0; i < processes; ++i)
+        {
+            int from = (int) ((long) seats * i / processes);
+            int to = (int) ((long) seats * (i + 1) / processes);
+            clients[i] = new ProcessBuilder(java, "-Xmx32m", "-Xss256k", "-XX:+UseSerialGC", "-XX:TieredStopAtLevel=1",
+                    "-cp", System.getProperty("java.class.path"), DiningPhilosophersCli.class.getName(),
+                    "--mode", "client", "--port", String.valueOf(server.getPort()), "--seats", String.valueOf(seats),
+                    "--from", String.valueOf(from), "--count", String.valueOf(to - from),
+                    "--seconds", String.valueOf(seconds), "--scale", options.getOrDefault("scale", "0.01"), "--no-header")
+                    .redirectErrorStream(true)
+                    .start();
+        }
+
+        RemoteTable.printHeader(System.out);
+        for (Process client : clients)
+        {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(client.getInputStream())))
+            {
+                String line;
+                while ((line = lines.readLine()) != null) System.out.println(line);
+            }
+            client.waitFor();
+        }
+
+        server.stop();
+        serverThread.join();
+        printServerStats(server);
+    }
+
+    // Totals of a table streamed with --telemetry / -Dtelemetry, every --every ms
+    private static void watch(Map<String, String> options) throws IOException
+    {
+        new TelemetryClient(new InetSocketAddress(options.getOrDefault("host", "localhost"), intOption(options, "port", 7071)))
+                .run(intOption(options, "every", 1000), intOption(options, "seconds", 0) * 1000L, System.out);
+    }
+
+    private static void printServerStats(ChopstickServer server)
+    {
+        System.out.printf("Server: %d frames in, %.1f frames per read, %d grants, %.1f grants per write%n",
+                server.getFramesIn(), server.getFramesPerRead(), server.getGrants(), server.getFramesPerWrite());
+    }
+
+    // --seed, or a fresh one (printed by the caller, so the run can be repeated)
+    private static long seedOption(Map<String, String> options)
+    {
+        return Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime())));
+    }
+
+    // Strategies that can run on a DeterministicClock; says which are skipped
+    private static String[] deterministicOnly(String[] names, int seats)
+    {
+        List<String> supported = new ArrayList<>();
+        for (String name : names)
+        {
+            if (AcquisitionStrategy.create(name, seats).waitsOnClock()) supported.add(name);
+            else System.out.println(name + ": can't run deterministically, skipped");
+        }
+        return supported.toArray(new String[0]);
+    }
+
+    // Many tables in shards; --migrations moves that many random philosophers
+    // a second between random tables
+    private static void hall(Map<String, String> options) throws InterruptedException
+    {
+        int tables = intOption(options, "tables", 64);
+        int seats = intOption(options, "seats", DEFAULT_SEATS);
+        int shards = intOption(options, "shards", Runtime.getRuntime().availableProcessors());
+        int seconds = intOption(options, "seconds", DEFAULT_SECONDS);
+        int migrations = intOption(options, "migrations", 0);
+        double scale = Double.parseDouble(options.getOrDefault("scale", "0.01"));
+        long seed = seedOption(options);
+
+        Hall hall = new Hall(tables, seats, shards, options.getOrDefault("strategy", "hierarchy"),
+                Timing.DEFAULT.scaled(scale), ExecutionMode.parse(options.getOrDefault("threads", "platform")));
+        hall.setSeed(seed);
+        System.out.println(tables + " tables of " + seats + " in " + hall.getShardCount() + " shards, seed " + seed);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        hall.start();
+        long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end)
+        {
+            if (migrations > 0 && tables > 1)
+            {
+                Thread.sleep(Math.max(1, 1000 / migrations));
+                hall.migrate(random.nextInt(tables), random.nextInt(tables));
+            }
+            else Thread.sleep(Math.max(1, (end - System.nanoTime()) / 1_000_000));
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long meals = hall.getTotalMeals();
+        hall.stop();
+
+        System.out.printf("%-6s %7s %7s %10s %10s %10s %9s%n", "shard", "tables", "seats", "meals/s", "p99 ms", "retries", "in/out");
+        for (int s = 0; s < hall.getShardCount(); ++s)
+        {
+            ShardMetrics m = hall.getShard(s);
+            System.out.printf("%-6d %7d %7d %10.2f %10.1f %10d %4d/%-4d%n", s, m.getTables(), m.getPhilosophers(),
+                    m.getTotalMeals() / elapsed, m.getHungerP99Millis(), m.getTotalRetries(), m.getMigrationsIn(),
+                    m.getMigrationsOut());
+        }
+        System.out.printf("total  %7d %7s %10.2f%n", tables, "", meals / elapsed);
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue)
+    {
+        return Integer.parseInt(options.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+
+    // Accepts "--key value" pairs and bare "--flag" switches
+    static Map<String, String> parse(String[] args)
+    {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; ++i)
+        {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i+1].startsWith("--"))
+                options.put(key, args[++i]);
+            else
+                options.put(key, "true");
+        }
+        return options;
+    }
+
+    private static void usage()
+    {
+        System.out.println("Usage: DiningPhilosophersCli [--mode simulate|threads|store|strategies|bench|sweep|hall|server|client|distributed|watch|graph]");
+        System.out.println("       [options]");
+        System.out.println("  simulate: [--seats N] [--hours H] [--seed S] [--store object|array|padded]");
+        System.out.println("  threads:  [--seats N] [--seconds S] [--threads platform|virtual|both]");
+        System.out.println("  store:    [--chopsticks N] [--workers T] [--seconds S] [--store object|array|padded|all]");
+        System.out.println("  strategies: [--seats N] [--seconds S] [--scale F] [--threads platform|virtual]");
+        System.out.println("              [--strategy hierarchy|waiter|ticket|backoff|all] [--seed S] [--deterministic]");
+        System.out.println("              [--journal file] [--telemetry PORT] [--telemetry-period MS]");
+        System.out.println("              [--log file] [--log-level debug|info|warn] [--log-max-mb M] [--log-files K]");
+        System.out.println("  bench:    [--warmups W] [--iterations I] [--iteration-ms MS] [--workers T] [--work U]");
+        System.out.println("            [--out results.json] [--baseline baseline.json] [--tolerance 0.2]");
+        System.out.println("  sweep:    [--seats 5,50] [--strategy all|a,b] [--distributions uniform,exponential,fixed]");
+        System.out.println("            [--eat-ratios 1] [--repeats R] [--seconds S (simulated)] [--speed X]");
+        System.out.println("            [--parallel P] [--threads platform|virtual] [--out sweep.csv] [--seed S]");
+        System.out.println("            [--deterministic]");
+        System.out.println("  server:   [--seats N] [--host localhost] [--port 7070] [--seconds S]");
+        System.out.println("  client:   [--seats N] [--host localhost] [--port 7070] [--from I] [--count K] [--seconds S]");
+        System.out.println("            [--scale F] [--threads platform|virtual]");
+        System.out.println("  distributed: [--seats N] [--processes P] [--seconds S] [--scale F]");
+        System.out.println("  watch:    [--host localhost] [--port 7071] [--every MS] [--seconds S]");
+        System.out.println("  graph:    [--topology ring|grid|random|all] [--diners N] [--resources R] [--k K (random)]");
+        System.out.println("            [--arbiter ordered|batch|all] [--seconds S] [--scale F] [--threads platform|virtual] [--seed S]");
+        System.out.println("  hall:     [--tables T] [--seats N] [--shards S] [--seconds S] [--scale F] [--migrations M/s]");
+        System.out.println("            [--strategy hierarchy|waiter|ticket|backoff] [--threads platform|virtual] [--seed S]");
+    }
+}
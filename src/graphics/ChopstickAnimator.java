@@ -0,0 +1,212 @@
+package graphics;
+
+import models.SimulationClock;
+
+import javax.swing.*;
+import java.util.Arrays;
+
+// One frame clock for every chopstick movement. Tweens live in primitive
+// arrays indexed by chopstick id and are reused; each frame advances the
+// active ones by elapsed simulation time (so a late frame never slows a
+// movement down, and a paused or sped up clock pauses or speeds it up too)
+// and repaints only the area the label moved through.
+//
+// If the EDT keeps falling behind, the frame rate is halved, and it climbs
+// back to the requested rate once frames are cheap again. The timer is
+// stopped while nothing is moving. EDT only.
+public class ChopstickAnimator
+{
+    private static final int MAX_FRAME_DELAY = 100; // Never drop below 10 fps
+    private static final int LATE_FRAMES_BEFORE_SLOWDOWN = 3;
+
+    private final JPanel panel;
+    private final SimulationClock clock;
+    private final Timer timer;
+    private int frameDelay;
+    private int currentDelay;
+    private long lastFrame;
+    private int lateFrames;
+
+    private JLabel[] labels = new JLabel[16];
+    private int[] x0 = new int[16];
+    private int[] y0 = new int[16];
+    private int[] x1 = new int[16];
+    private int[] y1 = new int[16];
+    private long[] startNanos = new long[16];
+    private long[] durationNanos = new long[16];
+
+    // Ids of the moving chopsticks, and each id's index in that list (-1 if idle)
+    private int[] active = new int[16];
+    private int[] activeIndex = filled(16);
+    private int activeCount;
+
+    public ChopstickAnimator(JPanel panel, SimulationClock clock, int frameRate)
+    {
+        this.panel = panel;
+        this.clock = clock;
+        frameDelay = 1000 / frameRate;
+        currentDelay = frameDelay;
+        timer = new Timer(frameDelay, e -> frame());
+    }
+
+    public void setFrameRate(int frameRate)
+    {
+        frameDelay = 1000 / frameRate;
+        currentDelay = frameDelay;
+        timer.setDelay(currentDelay);
+    }
+
+    // Moves label (chopstick id) from where it is now to (x, y), in durationMs of clock time
+    public void start(int id, JLabel label, int x, int y, long durationMs)
+    {
+        ensureCapacity(id + 1);
+
+        labels[id] = label;
+        x0[id] = label.getX();
+        y0[id] = label.getY();
+        x1[id] = x;
+        y1[id] = y;
+        startNanos[id] = clock.nanoTime();
+        durationNanos[id] = Math.max(1, durationMs * 1_000_000);
+
+        if (activeIndex[id] == -1)
+        {
+            activeIndex[id] = activeCount;
+            active[activeCount++] = id;
+        }
+
+        if (!timer.isRunning())
+        {
+            lastFrame = System.nanoTime();
+            timer.start();
+        }
+    }
+
+    // The destination of a moving chopstick moved (the table was resized):
+    // continue from where the label is now to (x, y), arriving when it would have
+    public void retarget(int id, int x, int y)
+    {
+        if (!isMoving(id)) return;
+
+        long now = clock.nanoTime();
+        x0[id] = labels[id].getX();
+        y0[id] = labels[id].getY();
+        x1[id] = x;
+        y1[id] = y;
+        durationNanos[id] = Math.max(1, startNanos[id] + durationNanos[id] - now);
+        startNanos[id] = now;
+    }
+
+    // Leaves the label wherever it currently is
+    public void cancel(int id)
+    {
+        if (id >= activeIndex.length || activeIndex[id] == -1) return;
+
+        int index = activeIndex[id];
+        int last = active[--activeCount];
+        active[index] = last;
+        activeIndex[last] = index;
+        activeIndex[id] = -1;
+        labels[id] = null;
+    }
+
+    public void cancelAll()
+    {
+        while (activeCount > 0) cancel(active[activeCount - 1]);
+        timer.stop();
+    }
+
+    public boolean isMoving(int id)
+    {
+        return id < activeIndex.length && activeIndex[id] != -1;
+    }
+
+    private void frame()
+    {
+        long now = System.nanoTime();
+        long interval = now - lastFrame;
+        lastFrame = now;
+        long simNow = clock.nanoTime();
+
+        for (int i = activeCount - 1; i >= 0; --i)
+        {
+            int id = active[i];
+            JLabel label = labels[id];
+            double t = Math.min(1.0, (double) (simNow - startNanos[id]) / durationNanos[id]);
+
+            int oldX = label.getX(), oldY = label.getY();
+            int newX = (int) (x0[id] + t * (x1[id] - x0[id]));
+            int newY = (int) (y0[id] + t * (y1[id] - y0[id]));
+            if (newX != oldX || newY != oldY)
+            {
+                label.setLocation(newX, newY);
+
+                // Dirty area: union of the old and new bounds
+                int left = Math.min(oldX, newX), top = Math.min(oldY, newY);
+                panel.repaint(left, top,
+                        Math.max(oldX, newX) - left + label.getWidth(),
+                        Math.max(oldY, newY) - top + label.getHeight());
+            }
+
+            if (t >= 1.0) cancel(id);
+        }
+
+        if (activeCount == 0)
+        {
+            timer.stop();
+            return;
+        }
+
+        adapt(interval, System.nanoTime() - now);
+    }
+
+    // Back off when frames arrive much later than asked for, recover when
+    // the work per frame is small again
+    private void adapt(long intervalNanos, long workNanos)
+    {
+        long delayNanos = currentDelay * 1_000_000L;
+        if (intervalNanos > 2 * delayNanos)
+        {
+            if (++lateFrames >= LATE_FRAMES_BEFORE_SLOWDOWN && currentDelay < MAX_FRAME_DELAY)
+            {
+                currentDelay = Math.min(MAX_FRAME_DELAY, currentDelay * 2);
+                timer.setDelay(currentDelay);
+                lateFrames = 0;
+            }
+        }
+        else
+        {
+            lateFrames = 0;
+            if (currentDelay > frameDelay && workNanos < delayNanos / 4)
+            {
+                currentDelay = Math.max(frameDelay, currentDelay / 2);
+                timer.setDelay(currentDelay);
+            }
+        }
+    }
+
+    private void ensureCapacity(int size)
+    {
+        if (size <= labels.length) return;
+
+        int capacity = Math.max(size, labels.length * 2);
+        int old = activeIndex.length;
+        labels = Arrays.copyOf(labels, capacity);
+        x0 = Arrays.copyOf(x0, capacity);
+        y0 = Arrays.copyOf(y0, capacity);
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        startNanos = Arrays.copyOf(startNanos, capacity);
+        durationNanos = Arrays.copyOf(durationNanos, capacity);
+        active = Arrays.copyOf(active, capacity);
+        activeIndex = Arrays.copyOf(activeIndex, capacity);
+        Arrays.fill(activeIndex, old, capacity, -1);
+    }
+
+    private static int[] filled(int size)
+    {
+        int[] values = new int[size];
+        Arrays.fill(values, -1);
+        return values;
+    }
+}
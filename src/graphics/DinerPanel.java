@@ -1,15 +1,18 @@
 package graphics;
 
+import journal.EventJournal;
+import journal.EventLog;
+import net.TelemetryServer;
+import metrics.DeadlockDetector;
+import metrics.DinerMetrics;
 import models.*;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.util.Arrays;
 
 import app.DiningPhilosophersApp;
 
-public class DinerPanel
+public class DinerPanel implements DinerListener
 {
     private static final int PHILOSOPHER_LABEL_WIDTH = 100;
     private static final int PHILOSOPHER_LABEL_HEIGHT = 120;
@@ -21,9 +24,12 @@ public class DinerPanel
     private static final int TABLE_IN_RADIUS = 250;
     private static final int TABLE_X_MARGIN = 100;
     private static final int TABLE_Y_MARGIN = 100;
-    private static final int CHOPSTICK_ANIMATION_TIME = 1000;
-    private static final int CHOPSTICK_ANIMATION_DELAY = 20;
-    private static final int CHOPSTICK_ANIMATION_STEPS = CHOPSTICK_ANIMATION_TIME / CHOPSTICK_ANIMATION_DELAY;
+    public static final int DEFAULT_FRAME_RATE = 50;
+    private static final int STARVATION_THRESHOLD = 30000; // ms hungry before it gets reported
+    private static final int DETECTOR_PERIOD = 100; // ms between deadlock detector samples
+    private static final int PUBLISH_PERIOD = 10; // ms between snapshots of the running table
+    private static final int EVENT_LOG_CAPACITY = 4096; // Records per ring of the event log
+    private static final int EVENT_LOG_PERIOD = 50; // ms between event log drains
 
     private static final String[] PHILOSOPHER_LABEL_RES = {
         "./res/thinking.jpeg", // URLs to images for each philosopher state
@@ -43,32 +49,101 @@ public class DinerPanel
     private Philosopher[] philosophers;
     private JLabel[] chopstickLabels;
     private JLabel[] philosopherLabels;
-    private Timer[] animationTimers;
+    private ChopstickAnimator animator;
+    private TableCanvas canvas; // Only in CANVAS mode, replaces the labels
     private int[] xChopstickRoots;
     private int[] yChopstickRoots;
+    private int[] chopstickHolders; // Where each chopstick is headed: -1 its root, else seat*2 + orientation
     private Thread[] threads;
 
-    private final DiningPhilosophersApp context;
+    // Philosopher threads only write the snapshot; the sampler timer draws
+    // its newest frame on the EDT, at the frame rate, whatever the speed
+    private final TableSnapshot snapshot;
+    private final TableSnapshot.Frame frame = new TableSnapshot.Frame();
+    private byte[] shownStates;  // As last drawn from the snapshot
+    private int[] shownHolders;
+    private final int frameRate;
 
-    public DinerPanel(DiningPhilosophersApp context, int n)
+    private final DiningPhilosophersApp context;
+    private final ExecutionMode executionMode;
+    private final AcquisitionStrategy strategy;
+    private final SpriteCache sprites;
+    private final DinerMetrics metrics;
+    private final DeadlockDetector detector;
+    private final SimulationClock clock = new SimulationClock();
+    private final Timing timing = Timing.DEFAULT.withClock(clock); // Chopstick animations last timing's chopstick time
+    private EventJournal journal = EventJournal.NONE;
+    private final EventLog eventLog = new EventLog(EVENT_LOG_CAPACITY, EVENT_LOG_PERIOD);
+    private Long seed; // Run seed for the philosophers' random streams, null for unseeded
+    private TelemetryServer telemetry; // Streams the table to headless observers, null if off
+    private boolean started; // Philosopher threads run; a replay only draws
+
+    public DinerPanel(DiningPhilosophersApp context, int n, ExecutionMode executionMode, AcquisitionStrategy strategy,
+                      int frameRate, RenderMode renderMode)
     {
         this.n = n;
         chopsticks = new Chopstick[n];
         philosophers = new Philosopher[n];
         chopstickLabels = new JLabel[n];
         philosopherLabels = new JLabel[n];
-        animationTimers = new Timer[n];
         xChopstickRoots = new int[n];
         yChopstickRoots = new int[n];
+        chopstickHolders = new int[n];
+        Arrays.fill(chopstickHolders, -1);
         threads = new Thread[n];
+        snapshot = new TableSnapshot(n);
+        shownStates = new byte[n];
+        shownHolders = new int[n];
+        Arrays.fill(shownHolders, -1);
+        this.frameRate = frameRate;
+        eventLog.setGui(message -> context.getMonitor().logMonitor(message), EventLog.DEBUG);
 
         this.context = context;
+        this.executionMode = executionMode;
+        this.strategy = strategy;
+        metrics = new DinerMetrics(n);
+        detector = new DeadlockDetector(new DeadlockDetector.Listener()
+        {
+            @Override
+            public void onDeadlock(int[] philosophers, int[] chopsticks)
+            {
+                String message = "DEADLOCK: philosophers " + Arrays.toString(philosophers)
+                        + " holding chopsticks " + Arrays.toString(chopsticks) + ", each waiting for the next one's";
+                eventLog.log(clock.nanoTime(), EventLog.WARN, message);
+            }
 
-        initPanel();
+            @Override
+            public void onStarvation(int philosopher, long hungryMillis, int chopstick, int holder)
+            {
+                String message = "STARVING: philosopher " + philosopher + " hungry for " + hungryMillis + " ms, waiting for chopstick "
+                        + chopstick + (holder >= 0 ? " held by philosopher " + holder : "");
+                eventLog.log(clock.nanoTime(), EventLog.WARN, message);
+            }
+        }, clock, STARVATION_THRESHOLD, DETECTOR_PERIOD);
+
+        // Decode every sprite once, up front, instead of on each state change
+        sprites = new SpriteCache(
+                PHILOSOPHER_LABEL_RES[0], PHILOSOPHER_LABEL_RES[1], PHILOSOPHER_LABEL_RES[2],
+                CHOPSTICK_LABEL_RES[0], CHOPSTICK_LABEL_RES[1]);
+
+        initPanel(frameRate, renderMode);
     }
 
-    private void initPanel()
+    private void initPanel(int frameRate, RenderMode renderMode)
     {
+        if (renderMode == RenderMode.CANVAS)
+        {
+            canvas = new TableCanvas(sprites, clock, PHILOSOPHER_LABEL_RES, CHOPSTICK_LABEL_RES, timing.getChopstickTime());
+            canvas.setPreferredSize(new Dimension(DINER_PANEL_WIDTH, DINER_PANEL_HEIGHT));
+            panel = canvas;
+            animator = new ChopstickAnimator(panel, clock, frameRate);
+
+            fillModels();
+            strategy.seat(Arrays.copyOf(philosophers, n));
+            canvas.setTable(philosophers, chopsticks, n);
+            return;
+        }
+
         panel = new JPanel()
         {
             @Override
@@ -80,15 +155,20 @@ public class DinerPanel
         };
         panel.setLayout(null);
         panel.setPreferredSize(new Dimension(DINER_PANEL_WIDTH, DINER_PANEL_HEIGHT));
+        animator = new ChopstickAnimator(panel, clock, frameRate);
 
         fillModels();
+        strategy.seat(Arrays.copyOf(philosophers, n));
         fillLabels();
         computePositions();
     }
 
+    // Seat i sits at angle i * 2pi/n, chopstick i between seats i-1 and i
+    // (chopstick 0 between the last seat and seat 0). Labels already on the
+    // panel are only moved, and chopsticks in flight keep flying towards
+    // their new destination.
     private void computePositions()
     {
-        // 0. Add philosophers
         double angleStep = (2 * Math.PI) / n;
         for (int i = 0; i < n; ++i)
         {
@@ -99,70 +179,42 @@ public class DinerPanel
             int yPhilosopherLabel =
                     (int) ((double) DINER_PANEL_HEIGHT/2 + TABLE_RADIUS*Math.sin(angle))
                             - PHILOSOPHER_LABEL_HEIGHT/2;
-
             philosopherLabels[i].setLocation(xPhilosopherLabel, yPhilosopherLabel);
-            panel.add(philosopherLabels[i]);
-        }
-
-        // 1. Build logical sequence for chopsticks
-        // 2. Compute positions
-        // 3. Save values in root arrays
-        // 4. Assign values
 
-        int[] logicalChopstickSequence = new int[n];
-        for (int i = 0; i < n; ++i)
-        {
-            Philosopher p0 = philosophers[(n-1+i)%n];
-            Philosopher p1 = philosophers[i];
-
-            // Then ph0 chopstick1 is the one in between
-            if (p0.getChopstick1() == p1.getChopstick1() || p0.getChopstick1() == p1.getChopstick2())
-                logicalChopstickSequence[i] = p0.getChopstick1().getId();
-            else // Otherwise it's chopstick2
-                logicalChopstickSequence[i] = p0.getChopstick2().getId();
-        }
-
-        for (int i = 0; i < n; ++i)
-        {
-            double angle = i * angleStep;
-            int xPhilosopherLabel =
-                    (int) ((double) DINER_PANEL_WIDTH/2 + TABLE_RADIUS*Math.cos(angle))
-                            - PHILOSOPHER_LABEL_WIDTH/2;
-            int yPhilosopherLabel =
-                    (int) ((double) DINER_PANEL_HEIGHT/2 + TABLE_RADIUS*Math.sin(angle))
-                            - PHILOSOPHER_LABEL_HEIGHT/2;
-
-            philosopherLabels[i].setLocation(xPhilosopherLabel, yPhilosopherLabel);
-
-            int xChopstickLabel =
+            xChopstickRoots[i] =
                     (int) ((double) DINER_PANEL_WIDTH/2 + TABLE_IN_RADIUS*Math.cos(angle - Math.PI/n))
                             - CHOPSTICK_LABEL_WIDTH/2;
-            int yChopstickLabel =
+            yChopstickRoots[i] =
                     (int) ((double) DINER_PANEL_HEIGHT/2 + TABLE_IN_RADIUS*Math.sin(angle - Math.PI/n))
                             - CHOPSTICK_LABEL_HEIGHT/2;
+        }
 
-            xChopstickRoots[logicalChopstickSequence[i]] = xChopstickLabel;
-            yChopstickRoots[logicalChopstickSequence[i]] = yChopstickLabel;
-
-            // Assign coordinates
-            if (chopsticks[logicalChopstickSequence[i]].getOwner() == -1)
-                chopstickLabels[logicalChopstickSequence[i]].setLocation(xChopstickLabel, yChopstickLabel);
-            else // The chopstick has an owner. Trunk animation.
-            {
-                // Final chopstick coordinates
-                int x1 = philosopherLabels[chopsticks[logicalChopstickSequence[i]].getOwner()].getX();
-                int y1 = philosopherLabels[chopsticks[logicalChopstickSequence[i]].getOwner()].getY() + PHILOSOPHER_LABEL_HEIGHT;
+        for (int i = 0; i < n; ++i)
+        {
+            int x = chopstickX(i), y = chopstickY(i);
+            if (animator.isMoving(i)) animator.retarget(i, x, y);
+            else chopstickLabels[i].setLocation(x, y);
 
-                if (philosophers[chopsticks[logicalChopstickSequence[i]].getOwner()].getChopstick1() != chopsticks[logicalChopstickSequence[i]])
-                    x1 += CHOPSTICK_LABEL_WIDTH;
+            // Only new labels go on the panel
+            if (chopstickLabels[i].getParent() == null) panel.add(chopstickLabels[i]);
+            if (philosopherLabels[i].getParent() == null) panel.add(philosopherLabels[i]);
+        }
+        panel.repaint();
+    }
 
-                chopstickLabels[logicalChopstickSequence[i]].setLocation(x1, y1);
-            }
+    // Where chopstick i rests or is headed, from chopstickHolders
+    private int chopstickX(int i)
+    {
+        int holder = chopstickHolders[i];
+        if (holder < 0 || holder >> 1 >= n) return xChopstickRoots[i];
+        return philosopherLabels[holder >> 1].getX() + (holder & 1) * CHOPSTICK_LABEL_WIDTH;
+    }
 
-            // Add to panel
-            panel.add(chopstickLabels[logicalChopstickSequence[i]]);
-            panel.add(philosopherLabels[i]);
-        }
+    private int chopstickY(int i)
+    {
+        int holder = chopstickHolders[i];
+        if (holder < 0 || holder >> 1 >= n) return yChopstickRoots[i];
+        return philosopherLabels[holder >> 1].getY() + PHILOSOPHER_LABEL_HEIGHT;
     }
 
     private void fillModels()
@@ -179,15 +231,23 @@ public class DinerPanel
                         this,
                         chopsticks[i],
                         chopsticks[(i + 1) % n],
-                        i
+                        i,
+                        strategy,
+                        timing
                 );
         if (philosophers[n-1] == null)
             philosophers[n-1] = new Philosopher(
                     this,
                     chopsticks[0],
                     chopsticks[n-1],
-                    n-1
+                    n-1,
+                    strategy,
+                    timing
             );
+
+        for (int i = 0; i < n; ++i)
+            philosophers[i].setMetrics(metrics);
+        detector.setTable(philosophers, n);
     }
 
     private void fillLabels()
@@ -197,7 +257,7 @@ public class DinerPanel
         {
             if (chopstickLabels[i] == null)
             {
-                chopstickLabels[i] = new JLabel(new ImageIcon(CHOPSTICK_LABEL_RES[0]));
+                chopstickLabels[i] = new JLabel(sprites.getIcon(CHOPSTICK_LABEL_RES[0]));
                 chopstickLabels[i].setSize(CHOPSTICK_LABEL_WIDTH, CHOPSTICK_LABEL_HEIGHT);
                 chopstickLabels[i].setText("CH " + chopsticks[i].getId());
                 chopstickLabels[i].setHorizontalTextPosition(JLabel.CENTER);
@@ -206,7 +266,7 @@ public class DinerPanel
 
             if (philosopherLabels[i] == null)
             {
-                philosopherLabels[i] = new JLabel(new ImageIcon(PHILOSOPHER_LABEL_RES[0]));
+                philosopherLabels[i] = new JLabel(sprites.getIcon(PHILOSOPHER_LABEL_RES[0]));
                 philosopherLabels[i].setSize(PHILOSOPHER_LABEL_WIDTH, PHILOSOPHER_LABEL_HEIGHT);
                 philosopherLabels[i].setText("PH " + philosophers[i].getId());
                 philosopherLabels[i].setHorizontalTextPosition(JLabel.CENTER);
@@ -224,14 +284,55 @@ public class DinerPanel
     }
 
     public JPanel getPanel() { return panel; }
+    public SpriteCache getSprites() { return sprites; }
+    public DinerMetrics getMetrics() { return metrics; }
+    public SimulationClock getClock() { return clock; }
+    public EventLog getEventLog() { return eventLog; }
+
+    // Before startAnimation: every philosopher, and every resize, records to journal
+    public void setJournal(EventJournal journal)
+    {
+        this.journal = journal;
+        for (int i = 0; i < n; ++i) philosophers[i].setJournal(journal);
+        journal.record(clock.nanoTime(), n, EventJournal.RESIZED, -1);
+    }
 
-    // Methods to interact with models
+    // Streams this table, and the table after every resize, to telemetry's clients
+    public void setTelemetry(TelemetryServer telemetry)
+    {
+        this.telemetry = telemetry;
+        telemetry.setTable(philosophers, chopsticks, n);
+    }
+
+    // Before startAnimation: every philosopher, also those added by a resize,
+    // draws its think and eat times from its own stream of seed
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+        for (int i = 0; i < n; ++i) philosophers[i].setSeed(seed);
+    }
+
+    // Methods to interact with models: from philosopher threads, so they
+    // only store into the snapshot
+    @Override
     public void updatePhilosopherLabel(Philosopher p)
     {
+        snapshot.seatChanged(p.getId(), p.getState());
+    }
+
+    // Draws seat in state; also what a replay drives
+    public void showState(int seat, int state)
+    {
+        if (canvas != null)
+        {
+            canvas.seatChanged(seat, state);
+            return;
+        }
+
         try
         {
-            if (p.getId() > n) return;
-            philosopherLabels[p.getId()].setIcon(new ImageIcon(PHILOSOPHER_LABEL_RES[p.getState()]));
+            if (seat >= n) return;
+            philosopherLabels[seat].setIcon(sprites.getIcon(PHILOSOPHER_LABEL_RES[state]));
         }
         catch (ArrayIndexOutOfBoundsException e)
         {
@@ -241,175 +342,217 @@ public class DinerPanel
 
     // Orientation 0 for left, 1 for right
     // Direction 1 if outwards (pick-up movement), 0 if inwards (put-down movement)
+    @Override
     public void animateMoveChopstick(Philosopher p, Chopstick c, int orientation, int direction)
     {
-        chopstickLabels[c.getId()].setIcon(new ImageIcon(CHOPSTICK_LABEL_RES[direction]));
-        int x0, y0, x1, y1;
-        double xStep, yStep;
-
-        // Outwards
-        if (direction == 1)
-        {
-            // Initial chopstick coordinates
-            x0 = chopstickLabels[c.getId()].getX();
-            y0 = chopstickLabels[c.getId()].getY();
-
-            // Final chopstick coordinates
-            x1 = philosopherLabels[p.getId()].getX() + (orientation * CHOPSTICK_LABEL_WIDTH);
-            y1 = philosopherLabels[p.getId()].getY() + PHILOSOPHER_LABEL_HEIGHT;
+        snapshot.chopstickMoved(c.getId(), direction == 1 ? p.getId() : -1, orientation);
+    }
 
-            xStep = (double) (x1 - x0) / CHOPSTICK_ANIMATION_STEPS;
-            yStep = (double) (y1 - y0) / CHOPSTICK_ANIMATION_STEPS;
-        }
+    // EDT, every frame. Draws whatever changed between the last frame drawn
+    // and the newest one published; a seat or chopstick that changed twice
+    // in between only shows its latest state.
+    private void sample()
+    {
+        if (!snapshot.read(frame)) return;
 
-        else
+        MonitorPanel monitor = context.getMonitor();
+        int[] totals = new int[3];
+        int size = Math.min(frame.n, n);
+        for (int i = 0; i < size; ++i)
         {
-            // Initial chopstick coordinates
-            x0 = chopstickLabels[c.getId()].getX();
-            y0 = chopstickLabels[c.getId()].getY();
+            byte state = frame.states[i];
+            totals[state]++;
+            if (state != shownStates[i])
+            {
+                shownStates[i] = state;
+                showState(i, state);
+                monitor.showStatus(i, state);
+            }
 
-            xStep = (double) (xChopstickRoots[c.getId()] - x0) / CHOPSTICK_ANIMATION_STEPS;
-            yStep = (double) (yChopstickRoots[c.getId()] - y0) / CHOPSTICK_ANIMATION_STEPS;
+            int holder = frame.holders[i];
+            int old = shownHolders[i];
+            if (holder != old)
+            {
+                shownHolders[i] = holder;
+                if (holder >= 0) moveChopstick(i, holder >> 1, holder & 1, 1);
+                else moveChopstick(i, old >> 1, old & 1, 0);
+            }
         }
+        monitor.setTotals(totals[0], totals[1], totals[2]);
+    }
 
-        animationTimers[c.getId()] = new Timer(CHOPSTICK_ANIMATION_DELAY, new ActionListener()
+    // EDT. Like moveChopstick, but straight to the spot (replay seeks)
+    public void placeChopstick(int chopstick, int seat, int orientation)
+    {
+        if (canvas != null)
         {
-            int currentStep = 0;
-
-            @Override
-            public void actionPerformed(ActionEvent actionEvent)
-            {
-                if (currentStep <= CHOPSTICK_ANIMATION_STEPS)
-                {
-                    double newX = x0 + currentStep * xStep;
-                    double newY = y0 + currentStep * yStep;
-                    chopstickLabels[c.getId()].setLocation((int) newX, (int) newY);
-                    currentStep++;
-                    panel.repaint();
-                }
-                else
-                {
-                    panel.repaint();
-                    ((Timer) actionEvent.getSource()).stop();
-                }
-            }
-        });
+            canvas.placeChopstick(chopstick, seat, orientation);
+            return;
+        }
+        if (chopstick >= n || seat >= n) return;
 
-        animationTimers[c.getId()].start();
+        animator.cancel(chopstick);
+        chopstickHolders[chopstick] = seat < 0 ? -1 : seat * 2 + orientation;
+        chopstickLabels[chopstick].setIcon(sprites.getIcon(CHOPSTICK_LABEL_RES[seat < 0 ? 0 : 1]));
+        chopstickLabels[chopstick].setLocation(chopstickX(chopstick), chopstickY(chopstick));
+        panel.repaint();
     }
 
-    public void stopChopstickAnimations()
+    // EDT. Chopstick movement by ids, for replays
+    public void moveChopstick(int chopstick, int seat, int orientation, int direction)
     {
-        for (int i = 0; i < n; ++i)
-            if (animationTimers[i] != null)
-                animationTimers[i].stop();
+        if (canvas != null)
+        {
+            canvas.chopstickMoved(chopstick, direction == 1 ? seat : -1, orientation);
+            return;
+        }
+        if (chopstick >= n || seat >= n) return;
+
+        // Outwards to the philosopher's hand, or back to the root
+        chopstickHolders[chopstick] = direction == 1 ? seat * 2 + orientation : -1;
+        chopstickLabels[chopstick].setIcon(sprites.getIcon(CHOPSTICK_LABEL_RES[direction]));
+        animator.start(chopstick, chopstickLabels[chopstick], chopstickX(chopstick), chopstickY(chopstick),
+                timing.getChopstickTime());
     }
 
     public void startAnimation()
     {
+        started = true;
+        logMonitor(sprites.getStats());
+        snapshot.start(PUBLISH_PERIOD);
+        eventLog.start();
+        new Timer(1000 / frameRate, e -> sample()).start();
+
         for (int i = 0; i < n; ++i)
         {
-            threads[i] = new Thread(philosophers[i]);
+            threads[i] = executionMode.newThread(philosophers[i], "Philosopher-" + i);
             threads[i].start();
         }
-
+        detector.start();
     }
 
+    @Override
     public void logMonitor(String message)
     {
-        context.getMonitor().logMonitor(message+"\n");
+        context.getMonitor().logMonitor(message);
     }
 
-    public void updateStatusPanel(Philosopher p)
+    // Formatted later by the event log's drain thread
+    @Override
+    public void logEvent(long nanos, int philosopher, int event, int chopstick)
     {
-        context.getMonitor().updateStatusPanel(p);
+        eventLog.record(nanos, philosopher, event, chopstick);
     }
 
-    public void addPhilosopher()
+    // The sampler updates the status rows and totals from the snapshot
+    @Override
+    public void updateStatusPanel(Philosopher p) {}
+
+    // EDT. Adds or removes any number of seats at once, at the seam between
+    // the last seat and seat 0. Only the seat next to the seam is rewired,
+    // and that philosopher swaps chopsticks itself once it holds none, so
+    // meals and chopstick movements in progress carry on. Storage grows by
+    // doubling and never shrinks.
+    public void resize(int target)
     {
-        chopsticks = Arrays.copyOf(chopsticks, n+1);
-        philosophers = Arrays.copyOf(philosophers, n+1);
-        chopstickLabels = Arrays.copyOf(chopstickLabels, n+1);
-        philosopherLabels = Arrays.copyOf(philosopherLabels, n+1);
-        animationTimers = Arrays.copyOf(animationTimers, n+1);
-        xChopstickRoots = Arrays.copyOf(xChopstickRoots, n+1);
-        yChopstickRoots = Arrays.copyOf(yChopstickRoots, n+1);
-        threads = Arrays.copyOf(threads, n+1);
+        if (target == n || target < 2) return;
 
-        chopsticks[n] = new Chopstick(n);
+        int old = n;
+        if (target > old) addSeats(old, target);
+        else removeSeats(old, target);
+        n = target;
+        journal.record(clock.nanoTime(), n, EventJournal.RESIZED, -1);
+        snapshot.resize(n);
 
-        // Check who owns the Ph0 chopstick1
-        Chopstick c = philosophers[0].getChopstick1();
+        strategy.resize(n);
+        metrics.setPhilosophers(n);
+        detector.setTable(philosophers, n);
+        if (telemetry != null) telemetry.setTable(philosophers, chopsticks, n);
 
-        if (c.getOwner() == 0 || c.getOwner() == -1)
-        {
-            philosophers[n] = new Philosopher(this, c, chopsticks[n], n);
-            philosophers[n-1].setChopstick1(chopsticks[n]);
-        }
+        if (canvas != null) canvas.setTable(philosophers, chopsticks, n);
         else
         {
-            philosophers[n] = new Philosopher(this, chopsticks[n], c, n);
-            philosophers[0].setChopstick1(chopsticks[n]);
+            fillLabels();
+            computePositions();
         }
 
-        threads[n] = new Thread(philosophers[n]);
-        threads[n].start();
-    }
-
-    public void remPhilosopherFromStatus(int status)
-    {
-        context.remPhilosopherFromStatus(status);
-    }
-
-    public void broadcastStatus()
-    {
-        for (int i = 0; i < n; ++i)
+        for (int i = old; i < n; ++i)
+        {
             context.getMonitor().updateStatusPanelWithoutChange(philosophers[i]);
+            if (!started) continue;
+            threads[i] = executionMode.newThread(philosophers[i], "Philosopher-" + i);
+            threads[i].start();
+        }
     }
 
-    public void remPhilosopher() throws InterruptedException {
-        // Stop execution
-        threads[n-1].interrupt();
-
-        // Last chopstick is either the primary chopstick of ph(0) or
-        // secondary chopstick of ph(n-1)
-        if (philosophers[0].getChopstick1() == chopsticks[n-1])
+    // New seats are wired like fillModels: seat i holds chopsticks i and i+1,
+    // the new last seat chopsticks 0 and target-1
+    private void addSeats(int old, int target)
+    {
+        ensureCapacity(target);
+        for (int i = old; i < target; ++i)
         {
-            philosophers[0].setChopstick1(philosophers[n-2].getChopstick1());
+            chopsticks[i] = new Chopstick(i);
+            chopstickHolders[i] = -1;
+            shownStates[i] = 0;
+            shownHolders[i] = -1;
         }
-        else
+
+        for (int i = old; i < target-1; ++i)
+            philosophers[i] = new Philosopher(this, chopsticks[i], chopsticks[i + 1], i, strategy, timing);
+        philosophers[target-1] = new Philosopher(this, chopsticks[0], chopsticks[target-1], target-1, strategy, timing);
+        for (int i = old; i < target; ++i)
         {
-            philosophers[n-2].setChopstick1(philosophers[0].getChopstick1());
+            philosophers[i].setMetrics(metrics);
+            philosophers[i].setJournal(journal);
+            if (seed != null) philosophers[i].setSeed(seed);
         }
 
-        // Remove graphics
-        panel.remove(chopstickLabels[n-1]);
-        panel.remove(philosopherLabels[n-1]);
+        // The old last seat now borders the first new seat instead of seat 0
+        philosophers[old-1].rewire(chopsticks[0], chopsticks[old]);
+    }
 
-        // Remove from total count of status
-        remPhilosopherFromStatus(philosophers[n-1].getState());
+    private void removeSeats(int old, int target)
+    {
+        // The new last seat borders seat 0 again
+        philosophers[target-1].rewire(chopsticks[target], chopsticks[0]);
 
-        // Shrink arrays
-        chopsticks = Arrays.copyOf(chopsticks, n-1);
-        philosophers = Arrays.copyOf(philosophers, n-1);
-        chopstickLabels = Arrays.copyOf(chopstickLabels, n-1);
-        philosopherLabels = Arrays.copyOf(philosopherLabels, n-1);
+        for (int i = target; i < old; ++i)
+        {
+            // Stop execution; the thread puts down whatever it holds on its way out
+            if (threads[i] != null) threads[i].interrupt();
+            animator.cancel(i);
 
-        if (animationTimers[n-1] != null)
-            animationTimers[n-1].stop();
-        animationTimers = Arrays.copyOf(animationTimers, n-1);
+            // Remove graphics
+            if (canvas == null)
+            {
+                panel.remove(chopstickLabels[i]);
+                panel.remove(philosopherLabels[i]);
+            }
 
-        xChopstickRoots = Arrays.copyOf(xChopstickRoots, n-1);
-        yChopstickRoots = Arrays.copyOf(yChopstickRoots, n-1);
-        threads = Arrays.copyOf(threads, n-1);
+            chopsticks[i] = null;
+            philosophers[i] = null;
+            chopstickLabels[i] = null;
+            philosopherLabels[i] = null;
+            threads[i] = null;
+        }
     }
 
-    public void setN(int n)
+    private void ensureCapacity(int size)
     {
-        this.n = n;
-        stopChopstickAnimations();
-        fillLabels();
-        computePositions();
-        broadcastStatus();
+        if (size <= chopsticks.length) return;
+
+        int capacity = Math.max(size, chopsticks.length * 2);
+        chopsticks = Arrays.copyOf(chopsticks, capacity);
+        philosophers = Arrays.copyOf(philosophers, capacity);
+        chopstickLabels = Arrays.copyOf(chopstickLabels, capacity);
+        philosopherLabels = Arrays.copyOf(philosopherLabels, capacity);
+        xChopstickRoots = Arrays.copyOf(xChopstickRoots, capacity);
+        yChopstickRoots = Arrays.copyOf(yChopstickRoots, capacity);
+        chopstickHolders = Arrays.copyOf(chopstickHolders, capacity);
+        threads = Arrays.copyOf(threads, capacity);
+        shownStates = Arrays.copyOf(shownStates, capacity);
+        shownHolders = Arrays.copyOf(shownHolders, capacity);
     }
+
 }
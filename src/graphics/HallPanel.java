@@ -0,0 +1,217 @@
+package graphics;
+
+import metrics.ShardMetrics;
+import models.Hall;
+import models.Philosopher;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+
+// Overview of every table of a Hall, laid out in a grid and tinted by
+// shard: the mouse wheel zooms around the cursor, dragging pans. Zoomed out
+// far enough, a table is a single disc shaded by how many of its seats are
+// eating; zoomed in, each seat is a dot in its state's colour. Clicking one
+// table and then another moves a philosopher from the first to the second.
+// The shard list on the right refreshes every second. EDT only.
+public class HallPanel
+{
+    private static final int FRAME_DELAY = 100;
+    private static final int STATS_DELAY = 1000;
+    private static final int CELL = 120;       // Grid cell, in hall units
+    private static final int TABLE_RADIUS = 40;
+    private static final int DETAIL_RADIUS = 12; // On-screen table radius below which seats aren't drawn
+    private static final double MIN_ZOOM = 0.02;
+    private static final double MAX_ZOOM = 8;
+    private static final Color[] STATE_COLORS = { new Color(90, 140, 220), new Color(230, 150, 40), new Color(60, 170, 80) };
+
+    private final Hall hall;
+    private final int columns;
+    private final JPanel panel;
+    private final JComponent view;
+    private final JTextArea stats;
+
+    private double zoom = 1;
+    private double offsetX, offsetY; // Screen position of the hall origin
+    private int dragX, dragY;
+    private int selected = -1;       // Table a migration starts from
+
+    public HallPanel(Hall hall)
+    {
+        this.hall = hall;
+        columns = (int) Math.ceil(Math.sqrt(hall.getTableCount()));
+
+        view = new JComponent()
+        {
+            @Override
+            protected void paintComponent(Graphics g)
+            {
+                paintHall((Graphics2D) g);
+            }
+        };
+        view.setOpaque(true);
+        view.setBackground(Color.WHITE);
+        MouseAdapter mouse = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent e)
+            {
+                dragX = e.getX();
+                dragY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e)
+            {
+                offsetX += e.getX() - dragX;
+                offsetY += e.getY() - dragY;
+                dragX = e.getX();
+                dragY = e.getY();
+                view.repaint();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e)
+            {
+                double next = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * Math.pow(1.15, -e.getPreciseWheelRotation())));
+                // Keep the point under the cursor where it is
+                offsetX = e.getX() - (e.getX() - offsetX) * next / zoom;
+                offsetY = e.getY() - (e.getY() - offsetY) * next / zoom;
+                zoom = next;
+                view.repaint();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e)
+            {
+                clicked(tableAt(e.getX(), e.getY()));
+            }
+        };
+        view.addMouseListener(mouse);
+        view.addMouseMotionListener(mouse);
+        view.addMouseWheelListener(mouse);
+
+        stats = new JTextArea();
+        stats.setEditable(false);
+        stats.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        panel = new JPanel(new BorderLayout());
+        panel.add(view, BorderLayout.CENTER);
+        panel.add(new JScrollPane(stats), BorderLayout.EAST);
+
+        new Timer(FRAME_DELAY, e -> view.repaint()).start();
+        new Timer(STATS_DELAY, e -> updateStats()).start();
+        updateStats();
+    }
+
+    public JPanel getPanel() { return panel; }
+
+    // Zooms so the whole hall fits the view
+    public void fit()
+    {
+        int rows = (hall.getTableCount() + columns - 1) / columns;
+        double width = Math.max(1, view.getWidth()), height = Math.max(1, view.getHeight());
+        zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, Math.min(width / (columns * CELL), height / (rows * CELL))));
+        offsetX = (width - columns * CELL * zoom) / 2;
+        offsetY = (height - rows * CELL * zoom) / 2;
+        view.repaint();
+    }
+
+    private void paintHall(Graphics2D g)
+    {
+        g.setColor(view.getBackground());
+        g.fillRect(0, 0, view.getWidth(), view.getHeight());
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        double radius = TABLE_RADIUS * zoom;
+        int shardCount = hall.getShardCount();
+        for (int t = 0; t < hall.getTableCount(); ++t)
+        {
+            double cx = offsetX + ((t % columns) + 0.5) * CELL * zoom;
+            double cy = offsetY + ((t / columns) + 0.5) * CELL * zoom;
+            if (cx + radius < 0 || cy + radius < 0 || cx - radius > view.getWidth() || cy - radius > view.getHeight())
+                continue; // Off screen
+
+            Philosopher[] seats = hall.getTable(t).getPhilosophers();
+            if (radius < DETAIL_RADIUS)
+            {
+                int eating = 0;
+                for (Philosopher p : seats) if (p.getState() == 2) eating++;
+                g.setColor(blend(Color.getHSBColor((float) hall.getShardOf(t) / shardCount, 0.2f, 0.95f),
+                        STATE_COLORS[2], (double) eating / Math.max(1, seats.length / 2)));
+                fillCircle(g, cx, cy, radius);
+                continue;
+            }
+
+            g.setColor(Color.getHSBColor((float) hall.getShardOf(t) / shardCount, 0.2f, 0.95f));
+            fillCircle(g, cx, cy, radius);
+            g.setColor(t == selected ? Color.RED : Color.GRAY);
+            g.drawOval((int) (cx - radius), (int) (cy - radius), (int) (2 * radius), (int) (2 * radius));
+
+            double dot = Math.max(1.5, Math.min(radius / 5, 0.8 * Math.PI * radius / seats.length)); // Seat radius
+            for (int i = 0; i < seats.length; ++i)
+            {
+                double angle = 2 * Math.PI * i / seats.length;
+                g.setColor(STATE_COLORS[Math.max(0, Math.min(2, seats[i].getState()))]);
+                fillCircle(g, cx + Math.cos(angle) * (radius - 1.5 * dot), cy + Math.sin(angle) * (radius - 1.5 * dot), dot);
+            }
+
+            if (radius > 3 * DETAIL_RADIUS)
+            {
+                g.setColor(Color.DARK_GRAY);
+                g.drawString(String.valueOf(t), (int) cx - 6, (int) cy + 5);
+            }
+        }
+    }
+
+    private void clicked(int table)
+    {
+        if (table < 0 || table == selected) selected = -1;
+        else if (selected < 0) selected = table;
+        else
+        {
+            if (!hall.migrate(selected, table))
+                System.out.println("Could not move a philosopher from table " + selected + " to table " + table);
+            selected = -1;
+        }
+        view.repaint();
+    }
+
+    private int tableAt(int x, int y)
+    {
+        int column = (int) Math.floor((x - offsetX) / (CELL * zoom));
+        int row = (int) Math.floor((y - offsetY) / (CELL * zoom));
+        if (column < 0 || column >= columns || row < 0) return -1;
+        int t = row * columns + column;
+        return t < hall.getTableCount() ? t : -1;
+    }
+
+    private void updateStats()
+    {
+        StringBuilder text = new StringBuilder(String.format("%-5s %6s %6s %9s %9s %7s%n",
+                "shard", "tables", "seats", "meals/s", "p99 ms", "in/out"));
+        for (int s = 0; s < hall.getShardCount(); ++s)
+        {
+            ShardMetrics m = hall.getShard(s);
+            text.append(String.format("%-5d %6d %6d %9.2f %9.1f %3d/%-3d%n", s, m.getTables(), m.getPhilosophers(),
+                    m.getMealsPerSecond(), m.getHungerP99Millis(), m.getMigrationsIn(), m.getMigrationsOut()));
+        }
+        text.append(String.format("%nTotal meals: %d", hall.getTotalMeals()));
+        stats.setText(text.toString());
+    }
+
+    private static void fillCircle(Graphics2D g, double cx, double cy, double r)
+    {
+        g.fillOval((int) (cx - r), (int) (cy - r), (int) Math.max(1, 2 * r), (int) Math.max(1, 2 * r));
+    }
+
+    private static Color blend(Color a, Color b, double t)
+    {
+        t = Math.max(0, Math.min(1, t));
+        return new Color((int) (a.getRed() + t * (b.getRed() - a.getRed())),
+                (int) (a.getGreen() + t * (b.getGreen() - a.getGreen())),
+                (int) (a.getBlue() + t * (b.getBlue() - a.getBlue())));
+    }
+}
@@ -0,0 +1,183 @@
+package graphics;
+
+import journal.EventJournal;
+import journal.JournalReader;
+import models.SimulationClock;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+
+// Plays an event journal back into a DinerPanel and MonitorPanel whose
+// philosophers don't run. Journal time follows the panel's clock, so the
+// monitor's speed, pause and step controls drive the replay too; the seek
+// bar jumps anywhere. The replay keeps the state the journal has led to
+// (seat states, chopstick holders, seat count): seeking forward continues
+// from there, seeking back rebuilds it from the start. EDT only.
+public class JournalReplay
+{
+    private static final int FRAME_DELAY = 16;
+    private static final int SEEK_STEPS = 1000;
+
+    private final JournalReader journal;
+    private final DinerPanel dp;
+    private final MonitorPanel mp;
+    private final SimulationClock clock;
+    private final long first, last; // Journal time span
+    private long offset;            // Journal time = offset + clock time
+    private long cursor;            // Next record to apply
+
+    private int n;
+    private int[] states = new int[0];  // -1 before the seat starts thinking
+    private int[] holders = new int[0]; // Chopstick holder: -1 on the table, else seat*2 + orientation
+    private final int[] totals = new int[3]; // Of states, a seat not yet thinking counted as thinking
+
+    private final JPanel panel;
+    private final JSlider seekSlider;
+    private final JLabel timeLabel;
+    private boolean movingSlider;
+
+    public JournalReplay(JournalReader journal, DinerPanel dp, MonitorPanel mp)
+    {
+        this.journal = journal;
+        this.dp = dp;
+        this.mp = mp;
+        clock = dp.getClock();
+        first = journal.size() > 0 ? journal.timestamp(0) : 0;
+        last = journal.size() > 0 ? journal.timestamp(journal.size() - 1) : 0;
+        offset = first - clock.nanoTime();
+
+        seekSlider = new JSlider(0, SEEK_STEPS, 0);
+        seekSlider.addChangeListener(e ->
+        {
+            if (!movingSlider) seek(first + (last - first) * seekSlider.getValue() / SEEK_STEPS);
+        });
+        timeLabel = new JLabel();
+        panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        panel.add(new JLabel("Replay"), BorderLayout.WEST);
+        panel.add(seekSlider, BorderLayout.CENTER);
+        panel.add(timeLabel, BorderLayout.EAST);
+    }
+
+    // Seat count the journal starts with, 0 if it doesn't say
+    public static int initialSeats(JournalReader journal)
+    {
+        for (long i = 0; i < journal.size(); ++i)
+            if (journal.event(i) == EventJournal.RESIZED) return journal.philosopher(i);
+        return 0;
+    }
+
+    public JPanel getPanel() { return panel; }
+
+    public void start()
+    {
+        mp.logMonitor("Replaying " + journal.size() + " events, " + (last - first) / 1_000_000 + " ms");
+        new Timer(FRAME_DELAY, e -> frame()).start();
+    }
+
+    private void frame()
+    {
+        long now = offset + clock.nanoTime();
+        while (cursor < journal.size() && journal.timestamp(cursor) <= now) apply(cursor++, true);
+
+        movingSlider = true;
+        seekSlider.setValue(last > first ? (int) (SEEK_STEPS * (Math.min(now, last) - first) / (last - first)) : 0);
+        movingSlider = false;
+        timeLabel.setText(String.format("%.1f / %.1f s", Math.max(0, Math.min(now, last) - first) / 1e9, (last - first) / 1e9));
+    }
+
+    // Moves the replay to journal time: replays the state silently up to it,
+    // then redraws everything from that state
+    private void seek(long time)
+    {
+        if (time < offset + clock.nanoTime())
+        {
+            cursor = 0;
+            n = 0;
+            Arrays.fill(states, -1);
+            Arrays.fill(holders, -1);
+            Arrays.fill(totals, 0);
+        }
+        int shownN = n;
+
+        long end = journal.indexAfter(time);
+        while (cursor < end) apply(cursor++, false);
+        offset = time - clock.nanoTime();
+
+        if (n != shownN) dp.resize(n);
+        mp.resetStatus(states, n);
+        for (int i = 0; i < n; ++i)
+        {
+            dp.showState(i, Math.max(0, states[i]));
+            dp.placeChopstick(i, holders[i] < 0 ? -1 : holders[i] >> 1, holders[i] & 1);
+        }
+    }
+
+    // Tracks the record in the replay's state and, if show, draws it
+    private void apply(long i, boolean show)
+    {
+        int p = journal.philosopher(i), event = journal.event(i), c = journal.chopstick(i);
+        if (event == EventJournal.RESIZED)
+        {
+            ensureCapacity(p);
+            for (int seat = p; seat < n; ++seat) totals[Math.max(0, states[seat])]--;
+            for (int seat = n; seat < p; ++seat)
+            {
+                states[seat] = -1;
+                totals[0]++;
+            }
+            for (int chopstick = n; chopstick < p; ++chopstick) holders[chopstick] = -1;
+            n = p;
+            if (show)
+            {
+                mp.setN(n);
+                mp.setTotals(totals[0], totals[1], totals[2]);
+                dp.resize(n);
+            }
+        }
+        else if (p < n && event >= EventJournal.STATE && event < EventJournal.STATE + 3)
+        {
+            totals[Math.max(0, states[p])]--;
+            states[p] = event - EventJournal.STATE;
+            totals[states[p]]++;
+            if (show)
+            {
+                dp.showState(p, states[p]);
+                mp.showStatus(p, states[p]);
+                mp.setTotals(totals[0], totals[1], totals[2]);
+            }
+        }
+        else if (p < n && c >= 0 && c < n && event >= EventJournal.PICKED_UP && event < EventJournal.PUT_DOWN + 2)
+        {
+            int orientation = (event - EventJournal.PICKED_UP) & 1;
+            int direction = event < EventJournal.PUT_DOWN ? 1 : 0;
+            holders[c] = direction == 1 ? p * 2 + orientation : -1;
+            if (show) dp.moveChopstick(c, p, orientation, direction);
+        }
+
+        if (show)
+        {
+            // Which of its two chopsticks: the second is picked up, and put
+            // down, while the philosopher holds the other
+            boolean second = false;
+            if (p < n)
+            {
+                int other = c == p ? (p + 1) % n : p;
+                second = holders[other] >= 0 && holders[other] >> 1 == p;
+            }
+            mp.logMonitor(journal.describe(i, second));
+        }
+    }
+
+    private void ensureCapacity(int size)
+    {
+        if (size <= states.length) return;
+        int capacity = Math.max(size, states.length * 2);
+        int old = states.length;
+        states = Arrays.copyOf(states, capacity);
+        holders = Arrays.copyOf(holders, capacity);
+        Arrays.fill(states, old, capacity, -1);
+        Arrays.fill(holders, old, capacity, -1);
+    }
+}
@@ -0,0 +1,74 @@
+package graphics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded ring of log lines: any number of philosopher threads offer, the
+// EDT drains. Lock-free (sequence-numbered slots); when the ring is full
+// new lines are dropped and counted instead of blocking the producer.
+public class LogBuffer
+{
+    private final int mask;
+    private final AtomicReferenceArray<String> lines;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head; // Consumer only
+
+    public LogBuffer(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        lines = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; ++i) sequences.set(i, i);
+    }
+
+    public boolean offer(String line)
+    {
+        long pos = tail.get();
+        while (true)
+        {
+            int slot = (int) (pos & mask);
+            long diff = sequences.get(slot) - pos;
+            if (diff == 0)
+            {
+                if (tail.compareAndSet(pos, pos + 1))
+                {
+                    lines.lazySet(slot, line);
+                    sequences.lazySet(slot, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            }
+            else if (diff < 0)
+            {
+                dropped.incrementAndGet();
+                return false;
+            }
+            else pos = tail.get();
+        }
+    }
+
+    // Appends up to max lines, each followed by '\n'. Single consumer only.
+    public int drainTo(StringBuilder out, int max)
+    {
+        int drained = 0;
+        while (drained < max)
+        {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) break; // Empty, or a producer is mid-write
+
+            out.append(lines.get(slot)).append('\n');
+            lines.lazySet(slot, null);
+            sequences.lazySet(slot, head + mask + 1);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    public long getDropped() { return dropped.get(); }
+    public int capacity() { return mask + 1; }
+}
@@ -2,40 +2,55 @@ package graphics;
 
 import app.DiningPhilosophersApp;
 import models.Philosopher;
+import models.SimulationClock;
 
 import javax.swing.*;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Arrays;
 
 public class MonitorPanel
 {
     private int n;
     private static final int FRAME_WIDTH = 1300;
     private static final int FRAME_HEIGHT = 900;
+    private static final int LOG_BUFFER_SIZE = 8192;
+    private static final int REFRESH_DELAY = 100; // ms between batched UI updates
+    public static final int DEFAULT_LOG_RETENTION = 2000; // lines kept in the log area
+    private static final int STEP_MILLIS = 100; // Simulated time one press of Step advances
     private final JPanel controlPanel;
     private final JTextArea logArea;
-    private final JTextArea statusArea;
+    private final JLabel logStatsLabel;
+    private final LogBuffer logBuffer;
+    private final StringBuilder logBatch = new StringBuilder();
+    private int logRetention;
+    private long logTrimmed;
+    private final JTable statusTable;
+    private final StatusTableModel statusModel;
+    private final JLabel totalsLabel;
     private final JButton addButton;
     private final JButton remButton;
+    private final JSpinner seatsSpinner;
+    private final JButton resizeButton;
+    private final JSlider speedSlider; // 100 * log10(speed)
+    private final JLabel speedLabel;
+    private final JButton pauseButton;
+    private final JButton stepButton;
 
     private final DiningPhilosophersApp context;
-    private String[] statusStrings;
-    private int[] statusTotals;
+    private final int[] statusTotals; // Thinking, hungry, eating; EDT only
 
-    public MonitorPanel(DiningPhilosophersApp context, int n)
+    // context may be null when the panel is driven headless (benchmarks)
+    public MonitorPanel(DiningPhilosophersApp context, int n, int logRetention)
     {
         this.context = context;
         this.n = n;
+        this.logRetention = logRetention;
+        logBuffer = new LogBuffer(LOG_BUFFER_SIZE);
 
-        statusStrings = new String[n];
-        statusTotals = new int[3];
-
-        for (int i = 0; i < n; ++i) statusStrings[i] = "thinking";
-        statusTotals[0] = 0;
-        statusTotals[1] = 0;
-        statusTotals[2] = n;
+        // Everyone starts as "thinking"
+        statusTotals = new int[] { n, 0, 0 };
 
         // Control panel
         controlPanel = new JPanel();
@@ -45,10 +60,8 @@ public class MonitorPanel
 
         // Control buttons
         JPanel buttonPanel = new JPanel();
-        buttonPanel.setLayout(new GridLayout(1, 2, 5, 5));
+        buttonPanel.setLayout(new GridLayout(2, 2, 5, 5));
         addButton = new JButton("Add");
-        if (n == 10)
-            addButton.setEnabled(false);
         addButton.addActionListener(new ActionListener()
         {
             @Override
@@ -59,33 +72,105 @@ public class MonitorPanel
         });
 
         remButton = new JButton("Del");
-        if (n == 5)
+        if (n <= DiningPhilosophersApp.MIN_SEATS)
             remButton.setEnabled(false);
         remButton.addActionListener(new ActionListener()
         {
             @Override
             public void actionPerformed(ActionEvent actionEvent)
             {
-                try
-                {
-                    handleRemPhilosopher();
-                } catch (InterruptedException e)
-                {
-                    System.out.println(e.getMessage());
-                }
+                handleRemPhilosopher();
+            }
+        });
+
+        // Jump straight to any table size
+        seatsSpinner = new JSpinner(new SpinnerNumberModel(n, DiningPhilosophersApp.MIN_SEATS, Integer.MAX_VALUE, 1));
+        resizeButton = new JButton("Resize");
+        resizeButton.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent)
+            {
+                handleResize();
             }
         });
 
         buttonPanel.add(remButton);
         buttonPanel.add(addButton);
+        buttonPanel.add(seatsSpinner);
+        buttonPanel.add(resizeButton);
+
+        if (context == null || !context.isResizable())
+        {
+            addButton.setEnabled(false);
+            remButton.setEnabled(false);
+            seatsSpinner.setEnabled(false);
+            resizeButton.setEnabled(false);
+        }
+
+        // Clock controls: speed on a log scale, pause/resume and single steps
+        SimulationClock clock = context == null ? null : context.getClock();
+        JPanel clockPanel = new JPanel(new BorderLayout(5, 5));
+        speedSlider = new JSlider((int) Math.round(100 * Math.log10(SimulationClock.MIN_SPEED)),
+                (int) Math.round(100 * Math.log10(SimulationClock.MAX_SPEED)),
+                clock == null ? 0 : (int) Math.round(100 * Math.log10(clock.getSpeed())));
+        speedLabel = new JLabel();
+        speedSlider.addChangeListener(e ->
+        {
+            if (clock != null) clock.setSpeed(Math.pow(10, speedSlider.getValue() / 100.0));
+            updateSpeedLabel();
+        });
+        pauseButton = new JButton("Pause");
+        pauseButton.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent)
+            {
+                handlePause();
+            }
+        });
+        stepButton = new JButton("Step");
+        stepButton.setEnabled(false);
+        stepButton.addActionListener(new ActionListener()
+        {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent)
+            {
+                context.getClock().step(STEP_MILLIS);
+            }
+        });
+        JPanel clockButtons = new JPanel(new GridLayout(1, 2, 5, 5));
+        clockButtons.add(pauseButton);
+        clockButtons.add(stepButton);
+        clockPanel.add(speedLabel, BorderLayout.WEST);
+        clockPanel.add(speedSlider, BorderLayout.CENTER);
+        clockPanel.add(clockButtons, BorderLayout.EAST);
+        updateSpeedLabel();
+
+        if (clock == null)
+        {
+            speedSlider.setEnabled(false);
+            pauseButton.setEnabled(false);
+        }
+
+        JPanel controls = new JPanel(new BorderLayout(5, 5));
+        controls.add(buttonPanel, BorderLayout.NORTH);
+        controls.add(clockPanel, BorderLayout.SOUTH);
+
+        // Status table, one row per philosopher, plus the totals below it
+        statusModel = new StatusTableModel(n);
+        statusTable = new JTable(statusModel);
+        statusTable.setFont(statusTable.getFont().deriveFont(18f));
+        statusTable.setRowHeight(statusTable.getFontMetrics(statusTable.getFont()).getHeight() + 4);
+        statusTable.setFillsViewportHeight(true);
+        JScrollPane scrollPane1 = new JScrollPane(statusTable);
 
-        // Large Text Area for Status
-        statusArea = new JTextArea();
-        statusArea.setEditable(false);
-        statusArea.setLineWrap(true);
-        statusArea.setWrapStyleWord(true);
-        statusArea.setFont(statusArea.getFont().deriveFont(18f));
-        JScrollPane scrollPane1 = new JScrollPane(statusArea);
+        totalsLabel = new JLabel();
+        totalsLabel.setFont(totalsLabel.getFont().deriveFont(16f));
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(scrollPane1, BorderLayout.CENTER);
+        statusPanel.add(totalsLabel, BorderLayout.SOUTH);
+        updateTotals();
 
         // Large Text Area for Logs
         logArea = new JTextArea();
@@ -95,97 +180,135 @@ public class MonitorPanel
         logArea.setFont(logArea.getFont().deriveFont(12f));
         JScrollPane scrollPane2 = new JScrollPane(logArea);
 
+        logStatsLabel = new JLabel();
+        JPanel logPanel = new JPanel(new BorderLayout());
+        logPanel.add(scrollPane2, BorderLayout.CENTER);
+        logPanel.add(logStatsLabel, BorderLayout.SOUTH);
+        updateLogStats();
+
         JPanel textPanel = new JPanel();
         textPanel.setLayout(new GridLayout(2, 1, 5, 5));
-        textPanel.add(scrollPane1);
-        textPanel.add(scrollPane2);
+        textPanel.add(statusPanel);
+        textPanel.add(logPanel);
+
+        // Philosopher threads only enqueue log lines and mark status rows
+        // dirty, the EDT picks them up in batches
+        new Timer(REFRESH_DELAY, e -> refresh()).start();
 
         // Add sub-panels to control panel
-        controlPanel.add(buttonPanel, BorderLayout.NORTH);
+        controlPanel.add(controls, BorderLayout.NORTH);
         controlPanel.add(textPanel, BorderLayout.CENTER);
     }
 
     public JPanel getPanel() { return controlPanel; }
-    public void logMonitor(String msg) { logArea.append(msg); }
+    // Safe from any thread, never blocks: the line is queued for the next flush
+    public void logMonitor(String msg) { logBuffer.offer(msg); }
+
+    public void setLogRetention(int lines) { logRetention = lines; }
 
-    public synchronized void updateStatusPanelWithoutChange(Philosopher p)
+    private void refresh()
     {
-        switch (p.getState())
+        flushLog();
+        statusModel.flush();
+        updateTotals();
+    }
+
+    private void flushLog()
+    {
+        logBatch.setLength(0);
+        if (logBuffer.drainTo(logBatch, logBuffer.capacity()) > 0)
         {
-            case 0: { statusStrings[p.getId()] = "thinking"; break; }
-            case 1: { statusStrings[p.getId()] = "hungry"; break; }
-            case 2: { statusStrings[p.getId()] = "eating"; break; }
+            logArea.append(logBatch.toString());
+            trimLog();
         }
+        updateLogStats();
+    }
 
-        String newStatus = "";
-        for (int i = 0; i < n; ++i)
+    // Keep only the newest logRetention lines
+    private void trimLog()
+    {
+        int excess = logArea.getLineCount() - 1 - logRetention; // Last line is the empty one after '\n'
+        if (excess <= 0) return;
+        try
         {
-            newStatus = newStatus.concat("Philosopher " + i + " is " + statusStrings[i] + "\n");
+            logArea.getDocument().remove(0, logArea.getLineEndOffset(excess - 1));
+            logTrimmed += excess;
         }
+        catch (BadLocationException e)
+        {
+            System.out.println("Non critical exception occurred. Continuing execution.");
+        }
+    }
 
-        newStatus = newStatus.concat("\nTotal Philosophers Thinking: " + statusTotals[0]);
-        newStatus = newStatus.concat("\nTotal Philosophers Hungry: " + statusTotals[1]);
-        newStatus = newStatus.concat("\nTotal Philosophers Eating: " + statusTotals[2]);
+    private void updateLogStats()
+    {
+        logStatsLabel.setText("Log: " + logBuffer.getDropped() + " dropped, " + logTrimmed + " trimmed (keeping " + logRetention + " lines)");
+    }
 
-        statusArea.setText(newStatus);
+    // Safe from any thread: only stores the state, the table catches up on the next refresh
+    public void updateStatusPanelWithoutChange(Philosopher p)
+    {
+        statusModel.setState(p.getId(), p.getState());
     }
 
-    public synchronized void updateStatusPanel(Philosopher p)
+    // EDT. A row and the totals as whoever draws the table has them: no
+    // transitions are counted here, so states skipped over can't skew them
+    public void showStatus(int id, int state)
     {
-        try {
-            if (p.getId() > n) return;
-            switch (p.getState()) {
-                case 0: {
-                    statusStrings[p.getId()] = "thinking";
-                    statusTotals[0]++;
-                    statusTotals[2]--;
-                    break;
-                }
-                case 1: {
-                    statusStrings[p.getId()] = "hungry";
-                    statusTotals[1]++;
-                    statusTotals[0]--;
-                    break;
-                }
-                case 2: {
-                    statusStrings[p.getId()] = "eating";
-                    statusTotals[2]++;
-                    statusTotals[1]--;
-                    break;
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException e)
-        {
-            System.out.println("Non critical exception occurred. Continuing execution.");
-        }
+        if (id < n) statusModel.setState(id, state);
+    }
 
-        String newStatus = "";
+    public void setTotals(int thinking, int hungry, int eating)
+    {
+        statusTotals[0] = thinking;
+        statusTotals[1] = hungry;
+        statusTotals[2] = eating;
+    }
+
+    // Replaces every row and the totals (replay seeks). A negative state is a
+    // seat that hasn't started thinking yet, shown as thinking.
+    public void resetStatus(int[] states, int n)
+    {
+        setN(n);
+        int[] totals = new int[3];
         for (int i = 0; i < n; ++i)
         {
-            newStatus = newStatus.concat("Philosopher " + i + " is " + statusStrings[i] + "\n");
+            totals[Math.max(0, states[i])]++;
+            statusModel.setState(i, Math.max(0, states[i]));
         }
+        setTotals(totals[0], totals[1], totals[2]);
+    }
 
-        newStatus = newStatus.concat("\nTotal Philosophers Thinking: " + statusTotals[0]);
-        newStatus = newStatus.concat("\nTotal Philosophers Hungry: " + statusTotals[1]);
-        newStatus = newStatus.concat("\nTotal Philosophers Eating: " + statusTotals[2]);
-
-        statusArea.setText(newStatus);
+    private void updateTotals()
+    {
+        totalsLabel.setText("<html>Total Philosophers Thinking: " + statusTotals[0]
+                + "<br>Total Philosophers Hungry: " + statusTotals[1]
+                + "<br>Total Philosophers Eating: " + statusTotals[2] + "</html>");
     }
 
-    private void handleAddPhilosopher(){ context.addPhilosopher(); }
-    private void handleRemPhilosopher() throws InterruptedException { context.remPhilosopher(); }
+    private void handleAddPhilosopher(){ context.resize(context.getN() + 1); }
+    private void handleRemPhilosopher(){ context.resize(context.getN() - 1); }
+    private void handleResize(){ context.resize((Integer) seatsSpinner.getValue()); }
 
-    public synchronized void setN(int n)
+    private void handlePause()
     {
-        if (n > this.n) statusTotals[2]++; // New philosopher enters thinking, but entering thinking adds 1 on those and removes 1 from eating
-        this.n = n;
-        remButton.setEnabled(n != 5);
-        addButton.setEnabled(n != 10);
-        statusStrings = Arrays.copyOf(statusStrings, n);
+        SimulationClock clock = context.getClock();
+        if (clock.isPaused()) clock.resume();
+        else clock.pause();
+        pauseButton.setText(clock.isPaused() ? "Resume" : "Pause");
+        stepButton.setEnabled(clock.isPaused());
     }
 
-    public void remPhilosopherFromStatus (int status)
+    private void updateSpeedLabel()
     {
-        statusTotals[status]--;
+        speedLabel.setText(String.format("Speed %.1fx", Math.pow(10, speedSlider.getValue() / 100.0)));
+    }
+
+    public void setN(int n)
+    {
+        this.n = n;
+        remButton.setEnabled(context != null && context.isResizable() && n > DiningPhilosophersApp.MIN_SEATS);
+        seatsSpinner.setValue(n);
+        statusModel.setRowCount(n);
     }
 }
@@ -0,0 +1,104 @@
+package graphics;
+
+import net.Protocol;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+// Shows a ChopstickServer's table in a DinerPanel and MonitorPanel whose own
+// philosophers don't run, like JournalReplay but live: the philosophers are
+// RemoteTable clients in other processes. A background thread reads the
+// server's observer stream; every read becomes one batch for the EDT.
+public class RemoteObserver
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InetSocketAddress server;
+    private final DinerPanel dp;
+    private final MonitorPanel mp;
+    private int n; // EDT
+    private int[] states = new int[0];        // Likewise
+    private final int[] totals = new int[3];  // Likewise
+
+    public RemoteObserver(InetSocketAddress server, DinerPanel dp, MonitorPanel mp)
+    {
+        this.server = server;
+        this.dp = dp;
+        this.mp = mp;
+    }
+
+    public void start()
+    {
+        Thread t = new Thread(this::readLoop, "Remote-Observer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void readLoop()
+    {
+        try (SocketChannel channel = SocketChannel.open(server))
+        {
+            ByteBuffer out = ByteBuffer.allocate(Protocol.FRAME);
+            Protocol.put(out, Protocol.OBSERVE, 0, 0, 0);
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(in) >= 0)
+            {
+                in.flip();
+                int[] frames = new int[in.remaining() / Protocol.FRAME * 4];
+                for (int i = 0; i < frames.length; ++i) frames[i] = in.getInt();
+                in.compact();
+                if (frames.length > 0) SwingUtilities.invokeLater(() -> apply(frames));
+            }
+            SwingUtilities.invokeLater(() -> mp.logMonitor("Chopstick server closed the connection"));
+        }
+        catch (IOException e)
+        {
+            SwingUtilities.invokeLater(() -> mp.logMonitor("Could not observe " + server + ": " + e.getMessage()));
+        }
+    }
+
+    private void apply(int[] frames)
+    {
+        for (int i = 0; i < frames.length; i += 4)
+        {
+            int op = frames[i], p = frames[i + 1], a = frames[i + 2], b = frames[i + 3];
+            switch (op)
+            {
+                case Protocol.SEATS:
+                    // The whole table follows: on joining, or after falling behind
+                    n = p;
+                    mp.setN(n);
+                    dp.resize(n);
+                    for (int c = 0; c < n; ++c) dp.placeChopstick(c, -1, 0);
+                    states = new int[n];
+                    Arrays.fill(totals, 0);
+                    totals[0] = n;
+                    mp.resetStatus(states, n);
+                    mp.logMonitor("Observing " + n + " seats at " + server);
+                    break;
+                case Protocol.STATE:
+                    if (p >= n || a < 0 || a > 2) break;
+                    totals[states[p]]--;
+                    states[p] = a;
+                    totals[a]++;
+                    dp.showState(p, a);
+                    mp.showStatus(p, a);
+                    mp.setTotals(totals[0], totals[1], totals[2]);
+                    break;
+                case Protocol.PICKED:
+                case Protocol.PUT:
+                    if (p >= n || a >= n) break;
+                    dp.moveChopstick(a, p, b, op == Protocol.PICKED ? 1 : 0);
+                    mp.logMonitor("Philosopher " + p + (op == Protocol.PICKED ? " got chopstick " : " left chopstick ") + a);
+                    break;
+            }
+        }
+    }
+}
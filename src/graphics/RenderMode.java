@@ -0,0 +1,14 @@
+package graphics;
+
+// LABELS: one JLabel per seat and chopstick, fine for a handful of seats.
+// CANVAS: TableCanvas paints everything itself, for thousands of seats.
+public enum RenderMode
+{
+    LABELS,
+    CANVAS;
+
+    public static RenderMode parse(String value)
+    {
+        return valueOf(value.toUpperCase());
+    }
+}
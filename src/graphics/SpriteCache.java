@@ -0,0 +1,99 @@
+package graphics;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decodes every sprite once and keeps it as an image in the screen's native
+// format, so drawing it is a plain (usually accelerated) blit. Scaled
+// variants are cached too. Lookups are safe from any thread.
+public class SpriteCache
+{
+    private final Map<String, ImageIcon> icons = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    public SpriteCache(String... paths)
+    {
+        for (String path : paths) getIcon(path);
+    }
+
+    public ImageIcon getIcon(String path)
+    {
+        return lookup(path, path, 0, 0);
+    }
+
+    // Same sprite, scaled to width x height
+    public ImageIcon getIcon(String path, int width, int height)
+    {
+        return lookup(path + "@" + width + "x" + height, path, width, height);
+    }
+
+    private ImageIcon lookup(String key, String path, int width, int height)
+    {
+        ImageIcon icon = icons.get(key);
+        if (icon != null)
+        {
+            hits.increment();
+            return icon;
+        }
+
+        misses.increment();
+        return icons.computeIfAbsent(key, k -> new ImageIcon(load(path, width, height)));
+    }
+
+    private Image load(String path, int width, int height)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            BufferedImage source = ImageIO.read(new File(path));
+            if (source == null) throw new IOException("Unsupported image format");
+
+            int w = width > 0 ? width : source.getWidth();
+            int h = height > 0 ? height : source.getHeight();
+            BufferedImage image = createCompatibleImage(w, h, source.getTransparency());
+
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, w, h, null);
+            g.dispose();
+            return image;
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not load sprite " + path + ": " + e.getMessage());
+            return new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+        }
+        finally
+        {
+            decodeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static BufferedImage createCompatibleImage(int width, int height, int transparency)
+    {
+        if (GraphicsEnvironment.isHeadless())
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height, transparency);
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public double getDecodeMillis() { return decodeNanos.sum() / 1e6; }
+
+    public String getStats()
+    {
+        return String.format("Sprites: %d cached, %d hits, %d misses, %.1f ms decoding",
+                icons.size(), getHits(), getMisses(), getDecodeMillis());
+    }
+}
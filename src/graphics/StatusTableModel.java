@@ -0,0 +1,105 @@
+package graphics;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// One row per philosopher. Philosopher threads only store the new state and
+// set the row's dirty bit; the EDT calls flush() at its own pace and fires
+// an update for just the rows that changed since the last flush.
+@SuppressWarnings("serial")
+public class StatusTableModel extends AbstractTableModel
+{
+    private static final String[] COLUMN_NAMES = { "Philosopher", "Status" };
+    private static final String[] STATUS_NAMES = { "thinking", "hungry", "eating" };
+
+    // Written by any thread
+    private volatile AtomicIntegerArray states;
+    private volatile AtomicLongArray dirty;
+
+    // EDT only
+    private int[] shown;
+    private int rows;
+
+    public StatusTableModel(int n)
+    {
+        rows = n;
+        allocate(Math.max(16, n));
+    }
+
+    // Safe from any thread
+    public void setState(int row, int state)
+    {
+        AtomicIntegerArray s = states;
+        if (row < 0 || row >= s.length()) return;
+        s.set(row, state);
+
+        AtomicLongArray d = dirty;
+        int word = row >>> 6;
+        long bit = 1L << row;
+        long bits;
+        while (((bits = d.get(word)) & bit) == 0 && !d.compareAndSet(word, bits, bits | bit)) { }
+    }
+
+    // EDT only. Pushes every changed row to the table, returns how many.
+    public int flush()
+    {
+        AtomicLongArray d = dirty;
+        AtomicIntegerArray s = states;
+        int changed = 0;
+        for (int word = 0; word < d.length(); ++word)
+        {
+            if (d.get(word) == 0) continue;
+            long bits = d.getAndSet(word, 0);
+            while (bits != 0)
+            {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (row >= rows || shown[row] == s.get(row)) continue;
+
+                shown[row] = s.get(row);
+                fireTableRowsUpdated(row, row);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // EDT only. Capacity grows by doubling, so resizing one seat at a time
+    // doesn't copy every time.
+    public void setRowCount(int n)
+    {
+        if (n > shown.length) grow(Math.max(n, shown.length * 2));
+
+        int old = rows;
+        rows = n;
+        if (n > old) fireTableRowsInserted(old, n - 1);
+        else if (n < old) fireTableRowsDeleted(n, old - 1);
+    }
+
+    private void allocate(int capacity)
+    {
+        shown = new int[capacity];
+        states = new AtomicIntegerArray(capacity);
+        dirty = new AtomicLongArray((capacity + 63) >>> 6);
+    }
+
+    private void grow(int capacity)
+    {
+        int[] oldShown = shown;
+        AtomicIntegerArray oldStates = states;
+        allocate(capacity);
+        System.arraycopy(oldShown, 0, shown, 0, oldShown.length);
+        for (int i = 0; i < oldStates.length(); ++i) states.set(i, oldStates.get(i));
+    }
+
+    @Override public int getRowCount() { return rows; }
+    @Override public int getColumnCount() { return COLUMN_NAMES.length; }
+    @Override public String getColumnName(int column) { return COLUMN_NAMES[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column)
+    {
+        return column == 0 ? "Philosopher " + row : STATUS_NAMES[shown[row]];
+    }
+}
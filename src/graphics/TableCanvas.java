@@ -0,0 +1,481 @@
+package graphics;
+
+import models.Chopstick;
+import models.Philosopher;
+import models.SimulationClock;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Draws the whole table itself instead of using one JLabel per seat and
+// chopstick. Positions, states and chopstick tweens are primitive arrays;
+// the scene lives in a VolatileImage back buffer and each frame only
+// redraws the neighbourhood of seats whose state changed or whose
+// chopsticks are moving, then repaints just that area. Radius and sprite
+// size follow the panel size and the seat count.
+//
+// seatChanged and chopstickMoved are safe from any thread; everything else
+// runs on the EDT.
+@SuppressWarnings("serial")
+public class TableCanvas extends JPanel
+{
+    private static final int FRAME_DELAY = 16; // ~60 fps
+    private static final int MARGIN = 10;
+    private static final int MAX_SEAT_SIZE = 100;
+    private static final int MIN_SEAT_SIZE = 4;
+    private static final Color TABLE_COLOR = Color.LIGHT_GRAY;
+
+    private final SpriteCache sprites;
+    private final SimulationClock clock; // Chopstick movements run on its time
+    private final String[] seatSprites;
+    private final String[] chopstickSprites;
+    private final long animationNanos;
+
+    // Written by any thread
+    private volatile AtomicIntegerArray seatStates;
+    private volatile AtomicIntegerArray chopstickTargets; // -1 on the table, else seat*2 + orientation
+    private volatile AtomicLongArray dirtySeats;
+    private volatile AtomicLongArray dirtyChopsticks;
+
+    // Layout
+    private int n;
+    private int seatW, seatH, chopW, chopH;
+    private int centerX, centerY, radius;
+    private int[] seatX = new int[0], seatY = new int[0];
+    private int[] rootX = new int[0], rootY = new int[0]; // Chopstick i rests between seats i-1 and i
+    private int window;                                   // Seats either side a redraw has to cover
+    private Image[] seatImages = new Image[0];
+    private Image[] chopstickImages = new Image[0];
+
+    // What is currently drawn
+    private int[] shownStates = new int[0];
+    private int[] chopX = new int[0], chopY = new int[0];
+    private int[] fromX = new int[0], fromY = new int[0];
+    private int[] toX = new int[0], toY = new int[0];
+    private long[] moveStart = new long[0];
+    private long[] moveNanos = new long[0];
+    private int[] moving = new int[0];
+    private int movingCount;
+    private boolean[] isMoving = new boolean[0];
+    private boolean[] outwards = new boolean[0];
+
+    // Areas to redraw this frame: seat, x, y, width, height
+    private int[] dirtyRects = new int[0];
+    private int dirtyCount;
+
+    private VolatileImage buffer;
+    private boolean fullRedraw = true;
+
+    public TableCanvas(SpriteCache sprites, SimulationClock clock, String[] seatSprites, String[] chopstickSprites,
+                       int animationTimeMs)
+    {
+        this.sprites = sprites;
+        this.clock = clock;
+        this.seatSprites = seatSprites;
+        this.chopstickSprites = chopstickSprites;
+        animationNanos = animationTimeMs * 1_000_000L;
+        growShared(16);
+        setOpaque(true);
+
+        new Timer(FRAME_DELAY, e -> frame()).start();
+    }
+
+    // Any thread
+    public void seatChanged(int seat, int state)
+    {
+        AtomicIntegerArray s = seatStates;
+        if (seat >= s.length()) return;
+        s.set(seat, state);
+        markDirty(dirtySeats, seat);
+    }
+
+    // Any thread. seat -1 puts the chopstick back on the table.
+    public void chopstickMoved(int chopstick, int seat, int orientation)
+    {
+        AtomicIntegerArray t = chopstickTargets;
+        if (chopstick >= t.length()) return;
+        t.set(chopstick, seat < 0 ? -1 : seat * 2 + orientation);
+        markDirty(dirtyChopsticks, chopstick);
+    }
+
+    // EDT. Puts the chopstick straight in place, no movement (replay seeks)
+    public void placeChopstick(int chopstick, int seat, int orientation)
+    {
+        if (chopstick >= n) return;
+        int target = seat < 0 ? -1 : seat * 2 + orientation;
+        chopstickTargets.set(chopstick, target);
+        if (isMoving[chopstick])
+        {
+            isMoving[chopstick] = false;
+            for (int i = 0; i < movingCount; ++i)
+                if (moving[i] == chopstick)
+                {
+                    moving[i] = moving[--movingCount];
+                    break;
+                }
+        }
+        chopX[chopstick] = targetX(target, chopstick);
+        chopY[chopstick] = targetY(target, chopstick);
+        fullRedraw = true;
+        repaint();
+    }
+
+    // EDT. Lays the table out for a new seat count and resyncs with the
+    // models. Chopsticks already moving keep moving, towards where their
+    // destination is in the new layout.
+    public void setTable(Philosopher[] philosophers, Chopstick[] chopsticks, int n)
+    {
+        if (n > seatStates.length()) growShared(Math.max(n, seatStates.length() * 2));
+        growLocal(n);
+        for (int i = 0; i < movingCount; )
+        {
+            if (moving[i] >= n)
+            {
+                isMoving[moving[i]] = false;
+                moving[i] = moving[--movingCount];
+            }
+            else i++;
+        }
+        this.n = n;
+
+        for (int i = 0; i < n; ++i)
+        {
+            seatStates.set(i, philosophers[i].getState());
+            shownStates[i] = philosophers[i].getState();
+
+            // Updates lost while the shared arrays were copied show up here
+            // as a difference with the owner, and start a movement
+            int owner = chopsticks[i].getOwner();
+            int target = -1;
+            if (owner >= 0 && owner < n)
+                target = owner * 2 + (philosophers[owner].getChopstick1() == chopsticks[i] ? 0 : 1);
+            if (chopstickTargets.getAndSet(i, target) != target) markDirty(dirtyChopsticks, i);
+        }
+
+        relayout();
+        repaint();
+    }
+
+    @Override
+    public void doLayout()
+    {
+        super.doLayout();
+        if (n > 0) relayout();
+    }
+
+    // Idle chopsticks jump to their new place, moving ones are redirected
+    // and still arrive on time
+    private void relayout()
+    {
+        layoutTable();
+        long now = clock.nanoTime();
+        for (int c = 0; c < n; ++c)
+        {
+            int target = chopstickTargets.get(c);
+            if (isMoving[c])
+            {
+                fromX[c] = chopX[c];
+                fromY[c] = chopY[c];
+                toX[c] = targetX(target, c);
+                toY[c] = targetY(target, c);
+                moveNanos[c] = Math.max(1, moveStart[c] + moveNanos[c] - now);
+                moveStart[c] = now;
+            }
+            else
+            {
+                chopX[c] = targetX(target, c);
+                chopY[c] = targetY(target, c);
+            }
+        }
+        fullRedraw = true;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        do
+        {
+            if (ensureBuffer() || fullRedraw) drawAll();
+            g.drawImage(buffer, 0, 0, null);
+        }
+        while (buffer.contentsLost());
+    }
+
+    private void frame()
+    {
+        if (n == 0 || !isShowing()) return;
+        if (ensureBuffer() || fullRedraw)
+        {
+            drawAll();
+            repaint();
+        }
+
+        // 1. Seats whose state changed
+        AtomicLongArray d = dirtySeats;
+        for (int word = 0; word < d.length(); ++word)
+        {
+            if (d.get(word) == 0) continue;
+            long bits = d.getAndSet(word, 0);
+            while (bits != 0)
+            {
+                int seat = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (seat >= n || shownStates[seat] == seatStates.get(seat)) continue;
+
+                shownStates[seat] = seatStates.get(seat);
+                addDirty(seat, seatX[seat], seatY[seat], seatW, seatH);
+            }
+        }
+
+        // 2. Chopsticks that got a new destination
+        long now = clock.nanoTime();
+        d = dirtyChopsticks;
+        for (int word = 0; word < d.length(); ++word)
+        {
+            if (d.get(word) == 0) continue;
+            long bits = d.getAndSet(word, 0);
+            while (bits != 0)
+            {
+                int c = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (c >= n) continue;
+
+                int target = chopstickTargets.get(c);
+                fromX[c] = chopX[c];
+                fromY[c] = chopY[c];
+                toX[c] = targetX(target, c);
+                toY[c] = targetY(target, c);
+                outwards[c] = target >= 0;
+                moveStart[c] = now;
+                moveNanos[c] = animationNanos;
+                if (!isMoving[c])
+                {
+                    isMoving[c] = true;
+                    moving[movingCount++] = c;
+                }
+            }
+        }
+
+        // 3. Advance every moving chopstick
+        for (int i = movingCount - 1; i >= 0; --i)
+        {
+            int c = moving[i];
+            double t = Math.min(1.0, (double) (now - moveStart[c]) / moveNanos[c]);
+            int oldX = chopX[c], oldY = chopY[c];
+            chopX[c] = (int) (fromX[c] + t * (toX[c] - fromX[c]));
+            chopY[c] = (int) (fromY[c] + t * (toY[c] - fromY[c]));
+
+            if (chopX[c] != oldX || chopY[c] != oldY || t >= 1.0)
+            {
+                int left = Math.min(oldX, chopX[c]), top = Math.min(oldY, chopY[c]);
+                addDirty(c, left, top, Math.abs(chopX[c] - oldX) + chopW, Math.abs(chopY[c] - oldY) + chopH);
+            }
+
+            if (t >= 1.0)
+            {
+                isMoving[c] = false;
+                moving[i] = moving[--movingCount];
+            }
+        }
+
+        // 4. Redraw around each change, or everything at once when that is cheaper
+        if (dirtyCount * (2 * window + 1) >= n)
+        {
+            drawAll();
+            repaint();
+        }
+        else
+        {
+            for (int i = 0; i < dirtyCount; ++i)
+                redraw(dirtyRects[5 * i], dirtyRects[5 * i + 1], dirtyRects[5 * i + 2], dirtyRects[5 * i + 3], dirtyRects[5 * i + 4]);
+        }
+        dirtyCount = 0;
+    }
+
+    private void addDirty(int seat, int x, int y, int w, int h)
+    {
+        int i = 5 * dirtyCount++;
+        dirtyRects[i] = seat;
+        dirtyRects[i + 1] = x;
+        dirtyRects[i + 2] = y;
+        dirtyRects[i + 3] = w;
+        dirtyRects[i + 4] = h;
+    }
+
+    // Redraws the rectangle into the back buffer, drawing only the seats and
+    // chopsticks around seat, then asks Swing to repaint that area
+    private void redraw(int seat, int x, int y, int w, int h)
+    {
+        Graphics2D g = buffer.createGraphics();
+        g.clipRect(x, y, w, h);
+        drawBackground(g);
+
+        int from = window >= n / 2 ? 0 : seat - window;
+        int to = window >= n / 2 ? n - 1 : seat + window;
+        for (int i = from; i <= to; ++i)
+        {
+            int s = ((i % n) + n) % n;
+            drawSeat(g, s);
+        }
+        for (int i = from; i <= to; ++i)
+        {
+            int s = ((i % n) + n) % n;
+            drawChopstick(g, s);
+        }
+        g.dispose();
+        repaint(x, y, w, h);
+    }
+
+    private void drawAll()
+    {
+        Graphics2D g = buffer.createGraphics();
+        drawBackground(g);
+        for (int s = 0; s < n; ++s) drawSeat(g, s);
+        for (int c = 0; c < n; ++c) drawChopstick(g, c);
+        g.dispose();
+        fullRedraw = false;
+    }
+
+    private void drawBackground(Graphics2D g)
+    {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(TABLE_COLOR);
+        int r = radius - seatH / 2;
+        g.fillOval(centerX - r, centerY - r, 2 * r, 2 * r);
+    }
+
+    private void drawSeat(Graphics2D g, int seat)
+    {
+        g.drawImage(seatImages[shownStates[seat]], seatX[seat], seatY[seat], null);
+    }
+
+    private void drawChopstick(Graphics2D g, int c)
+    {
+        boolean held = isMoving[c] ? outwards[c] : chopstickTargets.get(c) >= 0;
+        g.drawImage(chopstickImages[held ? 1 : 0], chopX[c], chopY[c], null);
+    }
+
+    // Top-left corner of chopstick c at rest (target -1) or in a seat's hand
+    private int targetX(int target, int c)
+    {
+        if (target < 0) return rootX[c];
+        return (target >> 1) < n ? seatX[target >> 1] + (target & 1) * chopW : chopX[c];
+    }
+
+    private int targetY(int target, int c)
+    {
+        if (target < 0) return rootY[c];
+        return (target >> 1) < n ? seatY[target >> 1] + seatH : chopY[c];
+    }
+
+    private void layoutTable()
+    {
+        int width = Math.max(1, getWidth()), height = Math.max(1, getHeight());
+        centerX = width / 2;
+        centerY = height / 2;
+
+        // Shrink the sprites until n of them fit around the ring
+        int outer = Math.min(width, height) / 2 - MARGIN;
+        int size = MAX_SEAT_SIZE;
+        while (size > MIN_SEAT_SIZE && 2 * Math.PI * (outer - size) / n < size * 1.05) size--;
+
+        seatW = size;
+        seatH = size * 6 / 5;
+        chopW = Math.max(2, size / 2);
+        chopH = Math.max(2, size * 7 / 10);
+        radius = Math.max(seatH, outer - seatH / 2);
+        int rootRadius = Math.max(0, radius - seatH - chopH);
+
+        double angleStep = (2 * Math.PI) / n;
+        for (int i = 0; i < n; ++i)
+        {
+            double angle = i * angleStep;
+            seatX[i] = (int) (centerX + radius * Math.cos(angle)) - seatW / 2;
+            seatY[i] = (int) (centerY + radius * Math.sin(angle)) - seatH / 2;
+            rootX[i] = (int) (centerX + rootRadius * Math.cos(angle - Math.PI / n)) - chopW / 2;
+            rootY[i] = (int) (centerY + rootRadius * Math.sin(angle - Math.PI / n)) - chopH / 2;
+        }
+
+        double spacing = 2 * Math.PI * Math.max(1, rootRadius) / n;
+        window = (int) Math.ceil((seatW + chopW + seatH + chopH) / spacing) + 1;
+
+        seatImages = new Image[seatSprites.length];
+        for (int i = 0; i < seatSprites.length; ++i)
+            seatImages[i] = sprites.getIcon(seatSprites[i], seatW, seatH).getImage();
+        chopstickImages = new Image[chopstickSprites.length];
+        for (int i = 0; i < chopstickSprites.length; ++i)
+            chopstickImages[i] = sprites.getIcon(chopstickSprites[i], chopW, chopH).getImage();
+    }
+
+    // Returns true if the buffer had to be (re)created and needs a full redraw
+    private boolean ensureBuffer()
+    {
+        int width = Math.max(1, getWidth()), height = Math.max(1, getHeight());
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height
+                || buffer.validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE)
+        {
+            if (buffer != null) buffer.flush();
+            buffer = createVolatileImage(width, height);
+            return true;
+        }
+        return buffer.validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_RESTORED;
+    }
+
+    // Copies what the philosopher threads wrote so far; a write racing with
+    // the copy is picked up again by setTable's resync
+    private void growShared(int capacity)
+    {
+        AtomicIntegerArray states = new AtomicIntegerArray(capacity);
+        AtomicIntegerArray targets = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; ++i) targets.set(i, -1);
+        AtomicIntegerArray oldStates = seatStates, oldTargets = chopstickTargets;
+        for (int i = 0; oldStates != null && i < oldStates.length(); ++i)
+        {
+            states.set(i, oldStates.get(i));
+            targets.set(i, oldTargets.get(i));
+        }
+        seatStates = states;
+        chopstickTargets = targets;
+        dirtySeats = new AtomicLongArray((capacity + 63) >>> 6);
+        dirtyChopsticks = new AtomicLongArray((capacity + 63) >>> 6);
+    }
+
+    // Keeps the tweens of the chopsticks that remain; capacity doubles
+    private void growLocal(int n)
+    {
+        if (n <= chopX.length) return;
+
+        int capacity = Math.max(n, chopX.length * 2);
+        seatX = new int[capacity];
+        seatY = new int[capacity];
+        rootX = new int[capacity];
+        rootY = new int[capacity];
+        shownStates = new int[capacity];
+        dirtyRects = new int[5 * 2 * capacity]; // At most one per seat and one per chopstick
+        chopX = Arrays.copyOf(chopX, capacity);
+        chopY = Arrays.copyOf(chopY, capacity);
+        fromX = Arrays.copyOf(fromX, capacity);
+        fromY = Arrays.copyOf(fromY, capacity);
+        toX = Arrays.copyOf(toX, capacity);
+        toY = Arrays.copyOf(toY, capacity);
+        moveStart = Arrays.copyOf(moveStart, capacity);
+        moveNanos = Arrays.copyOf(moveNanos, capacity);
+        moving = Arrays.copyOf(moving, capacity);
+        isMoving = Arrays.copyOf(isMoving, capacity);
+        outwards = Arrays.copyOf(outwards, capacity);
+    }
+
+    private static void markDirty(AtomicLongArray dirty, int index)
+    {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        long bits;
+        while (((bits = dirty.get(word)) & bit) == 0 && !dirty.compareAndSet(word, bits, bits | bit)) { }
+    }
+}
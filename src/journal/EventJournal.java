@@ -0,0 +1,158 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Append-only binary journal of everything the philosophers do, cheap
+// enough to leave on: a record is a slot reserved with one atomic add and
+// four absolute writes into a memory-mapped segment of the file. No locks,
+// no allocation, no string building; the OS writes the pages back.
+//
+// File: a header (magic, record size, record count) followed by fixed-size
+// records (timestamp, philosopher, chopstick, event). The event is written
+// last and is never 0, so a record cut short by a crash reads as empty. The
+// count is only filled in by close(); JournalReader copes without it.
+//
+// Records are in reservation order, so timestamps from different threads
+// can be slightly out of order.
+public class EventJournal implements Closeable
+{
+    // Event codes. State changes are STATE + state (thinking, hungry, eating),
+    // chopstick movements PICKED_UP / PUT_DOWN + orientation (0 left, 1 right).
+    public static final int STATE = 1;
+    public static final int PICKED_UP = 4;
+    public static final int PUT_DOWN = 6;
+    public static final int JOINED = 8;
+    public static final int LEFT = 9;
+    public static final int RESIZED = 10; // philosopher holds the new seat count
+
+    static final int MAGIC = 0x44504A31; // "DPJ1"
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 20;
+    static final int SEGMENT_SHIFT = 20; // 1M records a segment, records never straddle two
+    static final long SEGMENT_SIZE = (long) RECORD_SIZE << SEGMENT_SHIFT;
+    private static final int PAGE_SIZE = 4096;
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Records nothing
+    public static final EventJournal NONE = new EventJournal();
+
+    private final FileChannel channel;
+    private final AtomicLong next = new AtomicLong(); // Records reserved so far
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile boolean closed;
+
+    private EventJournal()
+    {
+        channel = null;
+        closed = true;
+    }
+
+    private EventJournal(FileChannel channel) throws IOException
+    {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(RECORD_SIZE).putLong(0).flip();
+        channel.write(header, 0);
+    }
+
+    // Starts a new journal, replacing the file if it exists
+    public static EventJournal create(Path file) throws IOException
+    {
+        return new EventJournal(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    // Any thread. timestamp is clock time in ns, chopstick -1 if none.
+    public void record(long timestamp, int philosopher, int event, int chopstick)
+    {
+        if (closed) return;
+
+        long index = next.getAndIncrement();
+        int segment = (int) (index >>> SEGMENT_SHIFT);
+        int offset = (int) (index & ((1 << SEGMENT_SHIFT) - 1)) * RECORD_SIZE;
+        MappedByteBuffer[] s = segments;
+        MappedByteBuffer buffer = segment < s.length && s[segment] != null ? s[segment] : map(segment);
+        if (buffer == null) return;
+        if (offset == 0) prefault(segment + 1); // First record of the segment: get the next one ready
+
+        buffer.putLong(offset, timestamp);
+        buffer.putInt(offset + 8, philosopher);
+        buffer.putInt(offset + 12, chopstick);
+        buffer.putInt(offset + 16, event);
+    }
+
+    public long size() { return Math.max(0, next.get()); }
+
+    // Stops recording and stores the record count. The file keeps the unused
+    // tail of the last segment (zeros, sparse on most file systems): shrinking
+    // it under a record still being written would crash the writer.
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (closed) return;
+        closed = true;
+
+        ByteBuffer count = ByteBuffer.allocate(8);
+        count.putLong(0, next.get());
+        channel.write(count, 8);
+        for (MappedByteBuffer buffer : segments) if (buffer != null) buffer.force();
+        channel.close();
+    }
+
+    // Maps the next segment and touches every page of it in the background,
+    // so writers don't take the page faults of a fresh file region. The touch
+    // is a compare-and-set of an empty event to itself: it needs the page
+    // writable but can't undo a record a writer got to first.
+    private void prefault(int segment)
+    {
+        Thread t = new Thread(() ->
+        {
+            MappedByteBuffer buffer = map(segment);
+            for (int page = 0; buffer != null && page < SEGMENT_SIZE && !closed; page += PAGE_SIZE)
+            {
+                int record = (page + RECORD_SIZE - 1) / RECORD_SIZE;
+                INTS.compareAndSet(buffer, record * RECORD_SIZE + 16, 0, 0);
+            }
+        }, "Journal-Prefault");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private MappedByteBuffer mapSegment(int segment) throws IOException
+    {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + segment * SEGMENT_SIZE, SEGMENT_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    // Maps segment, doubling the table if needed
+    private synchronized MappedByteBuffer map(int segment)
+    {
+        if (closed) return null;
+        try
+        {
+            MappedByteBuffer[] s = segments;
+            if (segment >= s.length) s = Arrays.copyOf(s, Math.max(segment + 1, s.length * 2));
+            if (s[segment] == null) s[segment] = mapSegment(segment);
+            segments = s;
+            return s[segment];
+        }
+        catch (IOException e)
+        {
+            System.out.println("Event journal stopped: " + e.getMessage());
+            closed = true;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package journal;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Human-readable log of what the philosophers do, without building any text
+// on their threads. A record is four primitives (time, event, philosopher,
+// chopstick) put into a lock-free ring; a drain thread turns them into lines
+// every period, only for the sinks that want that event's level: the GUI's
+// log and a RotatingFileSink. Recording never allocates or blocks; when a
+// ring is full the record is dropped and counted.
+//
+// Threads are spread over a fixed number of rings by thread id, so threads
+// rarely share one, and a table of 100k virtual threads doesn't need 100k
+// of them. Lines from different rings can be slightly out of order.
+//
+// Rare lines that aren't a philosopher event (deadlock and starvation
+// reports) are logged as text through a queue, drained the same way.
+public class EventLog implements Closeable
+{
+    // Levels
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    private static final String[] LEVEL_NAMES = { "DEBUG", "INFO", "WARN" };
+
+    // Events
+    public static final int JOINED = 1;
+    public static final int LEFT = 2;
+    public static final int THINKING = 3;
+    public static final int HUNGRY = 4;
+    public static final int EATING = 5;
+    public static final int GOT_FIRST = 6;
+    public static final int GOT_SECOND = 7;
+    public static final int PUT_FIRST = 8;
+    public static final int PUT_SECOND = 9;
+
+    private static final int ID_BITS = 28;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private final Ring[] rings;
+    private final int ringMask;
+    private final long periodMs;
+    private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+    private volatile Consumer<String> gui;
+    private volatile int guiLevel = DEBUG;
+    private volatile RotatingFileSink file;
+    private Thread drainer;
+    private volatile boolean running;
+
+    // Drain thread only
+    private final StringBuilder line = new StringBuilder();
+
+    public EventLog(int ringCapacity, long periodMs)
+    {
+        this(4 * Runtime.getRuntime().availableProcessors(), ringCapacity, periodMs);
+    }
+
+    // ringCount is rounded up to a power of two
+    public EventLog(int ringCount, int ringCapacity, long periodMs)
+    {
+        int count = Integer.highestOneBit(Math.max(1, ringCount - 1)) << 1;
+        rings = new Ring[count];
+        for (int i = 0; i < count; ++i) rings[i] = new Ring(ringCapacity);
+        ringMask = count - 1;
+        this.periodMs = periodMs;
+    }
+
+    // Lines of at least level go to gui, from the drain thread
+    public void setGui(Consumer<String> gui, int level)
+    {
+        this.gui = gui;
+        guiLevel = level;
+    }
+
+    public void setFile(RotatingFileSink file) { this.file = file; }
+
+    // Any thread. chopstick -1 if none.
+    public void record(long nanos, int philosopher, int event, int chopstick)
+    {
+        long packed = ((long) event << 2 * ID_BITS) | ((philosopher & ID_MASK) << ID_BITS) | ((chopstick + 1) & ID_MASK);
+        rings[(int) Thread.currentThread().getId() & ringMask].offer(nanos, packed);
+    }
+
+    // Any thread. Allocates, so not for the philosophers' hot path.
+    public void log(long nanos, int level, String text)
+    {
+        messages.offer(new Message(nanos, level, text));
+    }
+
+    public void start()
+    {
+        running = true;
+        drainer = new Thread(() ->
+        {
+            try
+            {
+                while (running)
+                {
+                    Thread.sleep(periodMs);
+                    drain();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // Closing
+            }
+        }, "Event-Log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    // Stops the drain thread, writes out what is left and closes the file
+    @Override
+    public void close()
+    {
+        running = false;
+        if (drainer != null)
+        {
+            drainer.interrupt();
+            try
+            {
+                drainer.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+        RotatingFileSink f = file;
+        if (f != null) f.close();
+    }
+
+    private void drain()
+    {
+        Consumer<String> g = gui;
+        RotatingFileSink f = file;
+        for (Ring ring : rings)
+        {
+            while (ring.hasNext())
+            {
+                long nanos = ring.time();
+                long packed = ring.record();
+                ring.advance();
+                int event = (int) (packed >>> 2 * ID_BITS);
+                int philosopher = (int) ((packed >>> ID_BITS) & ID_MASK);
+                int chopstick = (int) (packed & ID_MASK) - 1;
+                int level = levelOf(event);
+
+                boolean toGui = g != null && level >= guiLevel;
+                boolean toFile = f != null && level >= f.getLevel();
+                if (!toGui && !toFile) continue;
+
+                line.setLength(0);
+                format(line, event, philosopher, chopstick);
+                if (toGui) g.accept(line.toString());
+                if (toFile) f.write(nanos, LEVEL_NAMES[level], line);
+            }
+        }
+
+        Message m;
+        while ((m = messages.poll()) != null)
+        {
+            if (g != null && m.level >= guiLevel) g.accept(m.text);
+            if (f != null && m.level >= f.getLevel()) f.write(m.nanos, LEVEL_NAMES[m.level], m.text);
+        }
+        if (f != null) f.flush();
+    }
+
+    public static int levelOf(int event)
+    {
+        return event >= GOT_FIRST ? DEBUG : INFO;
+    }
+
+    public static int parseLevel(String name)
+    {
+        for (int level = 0; level < LEVEL_NAMES.length; ++level)
+            if (LEVEL_NAMES[level].equalsIgnoreCase(name)) return level;
+        throw new IllegalArgumentException("Unknown log level: " + name);
+    }
+
+    public static void format(StringBuilder out, int event, int philosopher, int chopstick)
+    {
+        out.append("Philosopher ").append(philosopher);
+        switch (event)
+        {
+            case JOINED: out.append(" just joined"); break;
+            case LEFT: out.append(" just left."); break;
+            case THINKING: out.append(" started thinking"); break;
+            case HUNGRY: out.append(" is hungry"); break;
+            case EATING: out.append(" started eating"); break;
+            case GOT_FIRST: out.append(" got (first) chopstick ").append(chopstick); break;
+            case GOT_SECOND: out.append(" got (second) chopstick ").append(chopstick); break;
+            case PUT_FIRST: out.append(" left (first) chopstick ").append(chopstick); break;
+            case PUT_SECOND: out.append(" left (second) chopstick ").append(chopstick); break;
+            default: out.append(" did ").append(event); break;
+        }
+    }
+
+    public long getDropped()
+    {
+        long dropped = 0;
+        for (Ring ring : rings) dropped += ring.dropped.get();
+        return dropped;
+    }
+
+    private static class Message
+    {
+        final long nanos;
+        final int level;
+        final String text;
+
+        Message(long nanos, int level, String text)
+        {
+            this.nanos = nanos;
+            this.level = level;
+            this.text = text;
+        }
+    }
+
+    // Like graphics.LogBuffer, but two longs a slot instead of a String
+    private static class Ring
+    {
+        private final int mask;
+        private final AtomicLongArray times;
+        private final AtomicLongArray records;
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private long head; // Drain thread only
+
+        Ring(int capacity)
+        {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            mask = size - 1;
+            times = new AtomicLongArray(size);
+            records = new AtomicLongArray(size);
+            sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; ++i) sequences.set(i, i);
+        }
+
+        void offer(long nanos, long record)
+        {
+            long pos = tail.get();
+            while (true)
+            {
+                int slot = (int) (pos & mask);
+                long diff = sequences.get(slot) - pos;
+                if (diff == 0)
+                {
+                    if (tail.compareAndSet(pos, pos + 1))
+                    {
+                        times.lazySet(slot, nanos);
+                        records.lazySet(slot, record);
+                        sequences.lazySet(slot, pos + 1);
+                        return;
+                    }
+                    pos = tail.get();
+                }
+                else if (diff < 0)
+                {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                else pos = tail.get();
+            }
+        }
+
+        // Drain thread only. False if empty, or the next producer is mid-write.
+        boolean hasNext()
+        {
+            return sequences.get((int) (head & mask)) == head + 1;
+        }
+
+        long time() { return times.get((int) (head & mask)); }
+        long record() { return records.get((int) (head & mask)); }
+
+        void advance()
+        {
+            sequences.lazySet((int) (head & mask), head + mask + 1);
+            head++;
+        }
+    }
+}
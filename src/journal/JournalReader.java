@@ -0,0 +1,117 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Random access to the records of an EventJournal file, mapped read-only.
+// A journal that wasn't closed (crash, kill) is read up to its first empty
+// record.
+public class JournalReader implements Closeable
+{
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    public JournalReader(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(EventJournal.HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < EventJournal.HEADER_SIZE || header.getInt() != EventJournal.MAGIC
+                || header.getInt() != EventJournal.RECORD_SIZE)
+        {
+            channel.close();
+            throw new IOException(file + " is not an event journal");
+        }
+        long count = header.getLong();
+
+        long bytes = channel.size() - EventJournal.HEADER_SIZE;
+        int segmentCount = (int) ((bytes + EventJournal.SEGMENT_SIZE - 1) / EventJournal.SEGMENT_SIZE);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; ++i)
+        {
+            long position = EventJournal.HEADER_SIZE + i * EventJournal.SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(EventJournal.SEGMENT_SIZE, channel.size() - position));
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        long available = bytes / EventJournal.RECORD_SIZE;
+        if (count == 0 || count > available)
+        {
+            count = 0;
+            while (count < available && event(count) != 0) count++;
+        }
+        size = count;
+    }
+
+    public long size() { return size; }
+
+    public long timestamp(long i) { return buffer(i).getLong(offset(i)); }
+    public int philosopher(long i) { return buffer(i).getInt(offset(i) + 8); }
+    public int chopstick(long i) { return buffer(i).getInt(offset(i) + 12); }
+    public int event(long i) { return buffer(i).getInt(offset(i) + 16); }
+
+    // Index of the first record after time. Timestamps are only nearly
+    // sorted, which is good enough to seek.
+    public long indexAfter(long time)
+    {
+        long low = 0, high = size;
+        while (low < high)
+        {
+            long mid = (low + high) >>> 1;
+            if (timestamp(mid) <= time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // The line the live log shows for the same event (EventLog.format). A
+    // chopstick record doesn't say which of the philosopher's two it was:
+    // second is whether the philosopher holds the other one as well.
+    public String describe(long i, boolean second)
+    {
+        int p = philosopher(i), e = event(i), c = chopstick(i);
+        int event;
+        switch (e)
+        {
+            case EventJournal.STATE: event = EventLog.THINKING; break;
+            case EventJournal.STATE + 1: event = EventLog.HUNGRY; break;
+            case EventJournal.STATE + 2: event = EventLog.EATING; break;
+            case EventJournal.PICKED_UP:
+            case EventJournal.PICKED_UP + 1: event = second ? EventLog.GOT_SECOND : EventLog.GOT_FIRST; break;
+            case EventJournal.PUT_DOWN:
+            case EventJournal.PUT_DOWN + 1: event = second ? EventLog.PUT_SECOND : EventLog.PUT_FIRST; break;
+            case EventJournal.JOINED: event = EventLog.JOINED; break;
+            case EventJournal.LEFT: event = EventLog.LEFT; break;
+            case EventJournal.RESIZED: return "Table resized to " + p + " seats";
+            default: return "Unknown event " + e;
+        }
+        StringBuilder line = new StringBuilder();
+        EventLog.format(line, event, p, c);
+        return line.toString();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private MappedByteBuffer buffer(long i)
+    {
+        return segments[(int) (i >>> EventJournal.SEGMENT_SHIFT)];
+    }
+
+    private static int offset(long i)
+    {
+        return (int) (i & ((1 << EventJournal.SEGMENT_SHIFT) - 1)) * EventJournal.RECORD_SIZE;
+    }
+}
@@ -0,0 +1,112 @@
+package journal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+// Text file an EventLog writes its lines to, from its drain thread only.
+// When the file would grow past maxBytes it becomes file.1, file.1 becomes
+// file.2 and so on; the oldest of files is deleted. Lines are
+// "seconds LEVEL message", seconds of clock time. A write error is printed
+// once and the sink goes quiet instead of failing the drain.
+public class RotatingFileSink
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final long maxBytes;
+    private final int files;
+    private final int level;
+    private Writer out;
+    private long size;
+    private boolean failed;
+
+    public RotatingFileSink(Path file, long maxBytes, int files, int level) throws IOException
+    {
+        if (maxBytes < 1 || files < 1) throw new IllegalArgumentException("Need at least one file of at least one byte");
+
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.files = files;
+        this.level = level;
+        open();
+    }
+
+    // Lines below this level are left out
+    public int getLevel() { return level; }
+
+    void write(long nanos, String levelName, CharSequence message)
+    {
+        if (failed) return;
+        try
+        {
+            String seconds = String.format(Locale.ROOT, "%.6f", nanos / 1e9);
+            long length = seconds.length() + levelName.length() + message.length() + 3; // ASCII
+            if (size > 0 && size + length > maxBytes) rotate();
+            out.append(seconds).append(' ').append(levelName).append(' ').append(message).append('\n');
+            size += length;
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    void flush()
+    {
+        if (failed) return;
+        try
+        {
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    void close()
+    {
+        try
+        {
+            out.close();
+        }
+        catch (IOException e)
+        {
+            if (!failed) fail(e);
+        }
+    }
+
+    private void rotate() throws IOException
+    {
+        out.close();
+        Files.deleteIfExists(numbered(files - 1));
+        for (int i = files - 2; i >= 1; --i)
+            if (Files.exists(numbered(i))) Files.move(numbered(i), numbered(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        if (files > 1) Files.move(file, numbered(1), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    // files counts the live file too: file, file.1 .. file.(files-1)
+    private Path numbered(int i)
+    {
+        return i == 0 ? file : file.resolveSibling(file.getFileName() + "." + i);
+    }
+
+    private void open() throws IOException
+    {
+        out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.US_ASCII), BUFFER_SIZE);
+        size = 0;
+    }
+
+    private void fail(IOException e)
+    {
+        failed = true;
+        System.out.println("Could not write the event log " + file + ": " + e.getMessage());
+    }
+}
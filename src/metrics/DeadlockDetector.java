@@ -0,0 +1,325 @@
+package metrics;
+
+import models.Chopstick;
+import models.Philosopher;
+import models.SimulationClock;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Watches a table from a background thread for deadlocks and starving
+// philosophers.
+//
+// The wait-for graph has an edge p -> q when p is hungry, holds one of its
+// chopsticks and the other one is held by q. A philosopher holding nothing
+// can't be waited on, so every node has at most one outgoing edge and a
+// deadlock is a cycle of those edges.
+//
+// Each sample refreshes the edges of only ~sqrt(n) seats (round robin) and
+// advances a cycle search by a bounded number of steps, resuming where it
+// stopped on the next sample, so the cost per sample stays sub-linear. A
+// cycle found in the sampled graph is re-checked against the live owners and
+// has to still be there on the next sample before it is reported.
+public class DeadlockDetector
+{
+    public interface Listener
+    {
+        // philosophers[i] holds chopsticks[i] and waits for chopsticks[i+1]
+        void onDeadlock(int[] philosophers, int[] chopsticks);
+
+        // Hungry for longer than the threshold, waiting for chopstick (held
+        // by holder, -1 if it is free)
+        void onStarvation(int philosopher, long hungryMillis, int chopstick, int holder);
+    }
+
+    private static final int MIN_BATCH = 8;
+    private static final int STEPS_PER_SEAT = 4; // Cycle-search budget per sampled seat
+
+    private final Listener listener;
+    private final SimulationClock clock; // What the philosophers' state times are read from
+    private final long starvationNanos;
+    private final long periodMs;
+    private ScheduledExecutorService executor;
+
+    private volatile Table table;
+    private volatile long failures; // Samples that threw, written by the detector thread only
+
+    // Detector thread only
+    private int n;
+    private int cursor;             // Next seat to sample
+    private int[] next = new int[0];          // Wait-for edge target, -1 if none
+    private int[] via = new int[0];           // Chopstick the edge waits on
+    private int[] stamp = new int[0];         // Walk that last visited the node
+    private long[] reportedSince = new long[0]; // Hunger episode already reported
+    private int[] pending = new int[0];       // Seats whose edge changed, to walk from
+    private boolean[] isPending = new boolean[0];
+    private int pendingHead, pendingCount;
+
+    private int walkStart = -1, walkAt, walkStamp;
+    private int[] suspect;          // Cycle waiting for its second confirmation
+    private long suspectSample;
+    private int[] reported;         // Last cycle reported, not repeated while it lasts
+    private long samples;
+
+    public DeadlockDetector(Listener listener, SimulationClock clock, long starvationMs, long periodMs)
+    {
+        this.listener = listener;
+        this.clock = clock;
+        starvationNanos = TimeUnit.MILLISECONDS.toNanos(starvationMs);
+        this.periodMs = periodMs;
+    }
+
+    // Any thread; the first n seats are picked up on the next sample. The
+    // chopsticks are reached through the philosophers. The array may be
+    // longer (spare capacity) but must not be written below n afterwards.
+    public void setTable(Philosopher[] philosophers, int n)
+    {
+        table = new Table(philosophers, n);
+    }
+
+    public void start()
+    {
+        executor = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread t = new Thread(r, "Deadlock-Detector");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::sample, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop()
+    {
+        if (executor != null) executor.shutdown();
+    }
+
+    // One detection step. Public so it can also be driven without the timer.
+    public void sample()
+    {
+        try
+        {
+            Table t = table;
+            if (t == null || t.n < 2) return;
+            Philosopher[] ps = t.philosophers;
+            if (t.n != n) resize(t.n);
+
+            samples++;
+            long now = clock.nanoTime();
+            int batch = Math.min(n, Math.max(MIN_BATCH, (int) Math.ceil(Math.sqrt(n))));
+            for (int i = 0; i < batch; ++i)
+            {
+                int p = cursor;
+                cursor = cursor + 1 == n ? 0 : cursor + 1;
+                refresh(ps, p, now);
+            }
+
+            search(ps, batch * STEPS_PER_SEAT);
+        }
+        catch (RuntimeException e)
+        {
+            // Not the resize race, refresh() and confirm() skip emptied seats:
+            // a bug. Keep sampling, a throw would cancel the scheduled task.
+            if (failures++ == 0) e.printStackTrace();
+            System.out.println("Deadlock detector sample failed (" + failures + " so far): " + e);
+        }
+    }
+
+    public long getFailures() { return failures; }
+
+    private void refresh(Philosopher[] ps, int p, long now)
+    {
+        Philosopher ph = ps[p];
+        int target = -1, chopstick = -1;
+
+        // Null while a removed seat is cleared before the smaller table is set
+        if (ph != null && ph.getState() == 1)
+        {
+            Chopstick c1 = ph.getChopstick1(), c2 = ph.getChopstick2();
+            int o1 = c1.getOwner(), o2 = c2.getOwner();
+            if (o1 == p && o2 != p) { target = o2; chopstick = c2.getId(); }
+            else if (o2 == p && o1 != p) { target = o1; chopstick = c1.getId(); }
+            else if (o1 != p && o2 != p) chopstick = c1.getId() < c2.getId() ? c1.getId() : c2.getId();
+
+            long since = ph.getStateSince();
+            if (now - since > starvationNanos && reportedSince[p] != since)
+            {
+                reportedSince[p] = since;
+                listener.onStarvation(p, TimeUnit.NANOSECONDS.toMillis(now - since), chopstick, target);
+            }
+            if (target < 0 || target >= n) target = -1;
+        }
+
+        if (next[p] != target || via[p] != chopstick)
+        {
+            next[p] = target;
+            via[p] = chopstick;
+            if (target != -1 && !isPending[p])
+            {
+                isPending[p] = true;
+                pending[(pendingHead + pendingCount++) % n] = p;
+            }
+        }
+    }
+
+    // Follows wait-for edges for at most budget steps, resuming the walk of
+    // the previous sample. A walk ends at a node without an edge, or at a
+    // node it already visited: a cycle.
+    private void search(Philosopher[] ps, int budget)
+    {
+        boolean foundCycle = false;
+        while (budget-- > 0)
+        {
+            if (walkStart == -1)
+            {
+                if (pendingCount == 0) break;
+                walkStart = pending[pendingHead];
+                pendingHead = (pendingHead + 1) % n;
+                pendingCount--;
+                isPending[walkStart] = false;
+
+                if (++walkStamp == 0) Arrays.fill(stamp, 0); // Wrapped around
+                walkAt = walkStart;
+                stamp[walkAt] = walkStamp;
+            }
+
+            int to = next[walkAt];
+            if (to == -1)
+            {
+                walkStart = -1;
+                continue;
+            }
+            if (stamp[to] == walkStamp)
+            {
+                foundCycle = true;
+                walkStart = -1;
+                if (!confirm(ps, to)) break;
+                continue;
+            }
+            stamp[to] = walkStamp;
+            walkAt = to;
+        }
+
+        // Nothing left to look at and no cycle seen: the graph has moved on
+        if (!foundCycle && walkStart == -1 && pendingCount == 0)
+        {
+            suspect = null;
+            reported = null;
+        }
+    }
+
+    // Re-reads the cycle through start from the live models. Reports it if it
+    // still holds and it is the same cycle as on an earlier sample. Returns
+    // false if the search should stop until the next sample.
+    private boolean confirm(Philosopher[] ps, int start)
+    {
+        // next[] may have moved on since the walk stamped it: only a walk
+        // that gets back to start within n steps is a cycle
+        int length = 1;
+        int at = next[start];
+        while (at != start)
+        {
+            if (at == -1 || length == n) return true;
+            at = next[at];
+            length++;
+        }
+
+        int[] cycle = new int[length];
+        int[] held = new int[length];
+        int p = start;
+        for (int i = 0; i < length; ++i)
+        {
+            cycle[i] = p;
+            p = next[p];
+        }
+
+        // Live check: everyone still hungry, holding the chopstick the previous
+        // one waits for and waiting for one held by the next
+        for (int i = 0; i < length; ++i)
+        {
+            int from = cycle[i], to = cycle[(i + 1) % length];
+            Philosopher ph = ps[from];
+            if (ph == null)
+            {
+                suspect = null;
+                reported = null;
+                return true;
+            }
+            Chopstick waitedOn = ph.getChopstick1().getId() == via[from] ? ph.getChopstick1() : ph.getChopstick2();
+            Chopstick mine = waitedOn == ph.getChopstick1() ? ph.getChopstick2() : ph.getChopstick1();
+            if (ph.getState() != 1 || mine.getOwner() != from || waitedOn.getOwner() != to)
+            {
+                suspect = null;
+                reported = null;
+                return true;
+            }
+            held[i] = mine.getId();
+        }
+
+        // Rotate so the smallest id comes first, to compare with the suspect
+        int min = 0;
+        for (int i = 1; i < length; ++i) if (cycle[i] < cycle[min]) min = i;
+        int[] philosophersInCycle = new int[length];
+        int[] chopsticksInCycle = new int[length];
+        for (int i = 0; i < length; ++i)
+        {
+            philosophersInCycle[i] = cycle[(min + i) % length];
+            chopsticksInCycle[i] = held[(min + i) % length];
+        }
+
+        if (Arrays.equals(philosophersInCycle, reported)) return true;
+        if (Arrays.equals(philosophersInCycle, suspect) && samples != suspectSample)
+        {
+            listener.onDeadlock(philosophersInCycle, chopsticksInCycle);
+            reported = philosophersInCycle;
+            suspect = null;
+            return true;
+        }
+
+        if (!Arrays.equals(philosophersInCycle, suspect))
+        {
+            suspect = philosophersInCycle;
+            suspectSample = samples;
+        }
+
+        // Look at it again on the next sample
+        if (!isPending[start])
+        {
+            isPending[start] = true;
+            pending[(pendingHead + pendingCount++) % n] = start;
+        }
+        return false;
+    }
+
+    private void resize(int size)
+    {
+        n = size;
+        cursor = 0;
+        next = new int[size];
+        via = new int[size];
+        Arrays.fill(next, -1);
+        Arrays.fill(via, -1);
+        stamp = new int[size];
+        reportedSince = Arrays.copyOf(reportedSince, size);
+        pending = new int[size];
+        isPending = new boolean[size];
+        pendingHead = pendingCount = 0;
+        walkStart = -1;
+        suspect = null;
+        reported = null;
+    }
+
+    // Published together so a sample never sees a count from another resize
+    private static class Table
+    {
+        final Philosopher[] philosophers;
+        final int n;
+
+        Table(Philosopher[] philosophers, int n)
+        {
+            this.philosophers = philosophers;
+            this.n = n;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Per-philosopher and aggregate counters for one table: hunger -> eating
+// latency, chopstick acquisition retries, meals and time spent in each
+// state. Philosopher threads record through stateChanged/retried, which are
+// a few atomic adds on preallocated arrays (no locks, no allocation); the
+// getters are for JMX and snapshots and may allocate.
+//
+// Capacity only grows (EDT, on resize). An update racing with the copy can
+// be lost, which is fine for metrics; ids past the capacity are ignored.
+public class DinerMetrics implements DinerMetricsMXBean
+{
+    // Does nothing: every id is out of range
+    public static final DinerMetrics NONE = new DinerMetrics(0);
+
+    private static final int STATES = 3; // Thinking, hungry, eating
+    private static final int PHILOSOPHER_SUB_BITS = 0; // Coarse per-philosopher histograms, 512 bytes each
+
+    private final long created = System.nanoTime();
+    private final LatencyHistogram hunger = new LatencyHistogram();
+
+    private volatile Slots slots;
+    private volatile int philosophers;
+
+    public DinerMetrics(int n)
+    {
+        slots = new Slots(n);
+        philosophers = n;
+    }
+
+    // Any philosopher thread, on every state change
+    public void stateChanged(int id, int from, int to, long nanos)
+    {
+        Slots s = slots;
+        if (id >= s.capacity) return;
+
+        long since = s.since.get(id);
+        if (since != 0) s.stateNanos.getAndAdd(id * STATES + from, nanos - since);
+        s.since.lazySet(id, nanos);
+
+        if (to == 1) s.hungrySince.lazySet(id, nanos);
+        else if (to == 2)
+        {
+            long waited = nanos - s.hungrySince.get(id);
+            hunger.record(waited);
+            s.hunger[id].record(waited);
+            s.meals.getAndIncrement(id);
+        }
+    }
+
+    // Any philosopher thread, each time a chopstick wasn't free when asked for
+    public void retried(int id)
+    {
+        Slots s = slots;
+        if (id < s.capacity) s.retries.getAndIncrement(id);
+    }
+
+    // EDT. Capacity doubles so adding seats one at a time doesn't copy each time.
+    public void setPhilosophers(int n)
+    {
+        if (n > slots.capacity) slots = slots.grow(Math.max(n, slots.capacity * 2));
+        philosophers = n;
+    }
+
+    public void register(String name)
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("diningphilosophers:type=DinerMetrics,name=" + name);
+            if (!server.isRegistered(objectName)) server.registerMBean(this, objectName);
+        }
+        catch (JMException e)
+        {
+            System.out.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    @Override public int getPhilosophers() { return philosophers; }
+    @Override public double getUptimeSeconds() { return (System.nanoTime() - created) / 1e9; }
+
+    @Override
+    public long getTotalMeals()
+    {
+        return sum(slots.meals);
+    }
+
+    @Override
+    public double getMealsPerSecond()
+    {
+        return getTotalMeals() / getUptimeSeconds();
+    }
+
+    @Override
+    public long getTotalRetries()
+    {
+        return sum(slots.retries);
+    }
+
+    // Merges this table's hunger latencies into histogram (a shard's, say)
+    public void addHungerTo(LatencyHistogram histogram)
+    {
+        histogram.add(hunger);
+    }
+
+    @Override public long getHungerCount() { return hunger.getCount(); }
+    @Override public double getHungerMeanMillis() { return hunger.getMean() / 1e6; }
+    @Override public double getHungerP50Millis() { return hunger.getPercentile(0.50) / 1e6; }
+    @Override public double getHungerP99Millis() { return hunger.getPercentile(0.99) / 1e6; }
+    @Override public double getHungerMaxMillis() { return hunger.getMax() / 1e6; }
+
+    @Override
+    public double[] getStateShare()
+    {
+        long[] totals = new long[STATES];
+        Slots s = slots;
+        int n = Math.min(philosophers, s.capacity);
+        for (int i = 0; i < n; ++i)
+            for (int state = 0; state < STATES; ++state)
+                totals[state] += s.stateNanos.get(i * STATES + state);
+
+        long all = totals[0] + totals[1] + totals[2];
+        double[] share = new double[STATES];
+        for (int state = 0; state < STATES && all > 0; ++state) share[state] = (double) totals[state] / all;
+        return share;
+    }
+
+    @Override public long[] getMealsPerPhilosopher() { return perPhilosopher(slots.meals); }
+    @Override public long[] getRetriesPerPhilosopher() { return perPhilosopher(slots.retries); }
+
+    @Override
+    public double[] getHungerP99MillisPerPhilosopher()
+    {
+        Slots s = slots;
+        double[] values = new double[Math.min(philosophers, s.capacity)];
+        for (int i = 0; i < values.length; ++i) values[i] = s.hunger[i].getPercentile(0.99) / 1e6;
+        return values;
+    }
+
+    // Milliseconds philosopher id has spent thinking, hungry and eating
+    @Override
+    public double[] getStateMillis(int id)
+    {
+        Slots s = slots;
+        double[] millis = new double[STATES];
+        if (id < 0 || id >= s.capacity) return millis;
+        for (int state = 0; state < STATES; ++state) millis[state] = s.stateNanos.get(id * STATES + state) / 1e6;
+        return millis;
+    }
+
+    @Override
+    public double getHungerPercentileMillis(int id, double q)
+    {
+        Slots s = slots;
+        if (id < 0 || id >= s.capacity) return 0;
+        return s.hunger[id].getPercentile(q) / 1e6;
+    }
+
+    private long[] perPhilosopher(AtomicLongArray values)
+    {
+        long[] result = new long[Math.min(philosophers, values.length())];
+        for (int i = 0; i < result.length; ++i) result[i] = values.get(i);
+        return result;
+    }
+
+    private long sum(AtomicLongArray values)
+    {
+        long total = 0;
+        int n = Math.min(philosophers, values.length());
+        for (int i = 0; i < n; ++i) total += values.get(i);
+        return total;
+    }
+
+    // Everything indexed by philosopher id, swapped as a whole on growth
+    private static class Slots
+    {
+        final int capacity;
+        final AtomicLongArray since;       // When the current state was entered
+        final AtomicLongArray hungrySince;
+        final AtomicLongArray stateNanos;  // id * STATES + state
+        final AtomicLongArray meals;
+        final AtomicLongArray retries;
+        final LatencyHistogram[] hunger;
+
+        Slots(int capacity)
+        {
+            this.capacity = capacity;
+            since = new AtomicLongArray(capacity);
+            hungrySince = new AtomicLongArray(capacity);
+            stateNanos = new AtomicLongArray(capacity * STATES);
+            meals = new AtomicLongArray(capacity);
+            retries = new AtomicLongArray(capacity);
+            hunger = new LatencyHistogram[capacity];
+            for (int i = 0; i < capacity; ++i) hunger[i] = new LatencyHistogram(PHILOSOPHER_SUB_BITS);
+        }
+
+        Slots grow(int newCapacity)
+        {
+            Slots grown = new Slots(newCapacity);
+            for (int i = 0; i < capacity; ++i)
+            {
+                grown.since.set(i, since.get(i));
+                grown.hungrySince.set(i, hungrySince.get(i));
+                grown.meals.set(i, meals.get(i));
+                grown.retries.set(i, retries.get(i));
+                grown.hunger[i] = hunger[i];
+                for (int state = 0; state < STATES; ++state)
+                    grown.stateNanos.set(i * STATES + state, stateNanos.get(i * STATES + state));
+            }
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package metrics;
+
+// What DinerMetrics exposes over JMX (jconsole, VisualVM, ...). Times are
+// milliseconds; state arrays are thinking, hungry, eating.
+public interface DinerMetricsMXBean
+{
+    int getPhilosophers();
+    double getUptimeSeconds();
+
+    long getTotalMeals();
+    double getMealsPerSecond();
+    long getTotalRetries();
+
+    long getHungerCount();
+    double getHungerMeanMillis();
+    double getHungerP50Millis();
+    double getHungerP99Millis();
+    double getHungerMaxMillis();
+    double[] getStateShare();
+
+    long[] getMealsPerPhilosopher();
+    long[] getRetriesPerPhilosopher();
+    double[] getHungerP99MillisPerPhilosopher();
+
+    double[] getStateMillis(int id);
+    double getHungerPercentileMillis(int id, double q);
+}
@@ -0,0 +1,117 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of non-negative values: every power of two is split
+// into 16 buckets, so any percentile is within ~6% of the true value.
+// Recording is a couple of atomic adds, lock-free and allocation-free, so
+// many threads can share one instance.
+public class LatencyHistogram
+{
+    public static final int DEFAULT_SUB_BITS = 4;
+
+    private final int subBits;
+    private final int subBuckets;
+    private final int buckets;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram()
+    {
+        this(DEFAULT_SUB_BITS);
+    }
+
+    // 2^subBits buckets per power of two. 0 keeps just the powers of two
+    // (64 buckets, ~2x precision), for when thousands of them are needed.
+    public LatencyHistogram(int subBits)
+    {
+        this.subBits = subBits;
+        subBuckets = 1 << subBits;
+        buckets = subBuckets + (63 - subBits) * subBuckets;
+        counts = new AtomicLongArray(buckets);
+    }
+
+    public void record(long value)
+    {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) { }
+    }
+
+    // Adds everything recorded in other to this histogram
+    public void add(LatencyHistogram other)
+    {
+        if (other.subBits != subBits) throw new IllegalArgumentException("Histograms have different precision");
+        for (int i = 0; i < buckets; ++i)
+        {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        count.addAndGet(other.count.get());
+        sum.addAndGet(other.sum.get());
+
+        long value = other.max.get();
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) { }
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < buckets; ++i) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    // Upper bound of the bucket holding the q-quantile (q in 0..1)
+    public long getPercentile(double q)
+    {
+        long total = 0;
+        for (int i = 0; i < buckets; ++i) total += counts.get(i);
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < buckets; ++i)
+        {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    public double getMean()
+    {
+        long c = count.get();
+        return c == 0 ? 0 : (double) sum.get() / c;
+    }
+
+    public long getCount() { return count.get(); }
+    public long getSum() { return sum.get(); }
+    public long getMax() { return max.get(); }
+
+    private int bucket(long value)
+    {
+        if (value < subBuckets) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - subBits)) & (subBuckets - 1);
+        return subBuckets + (exponent - subBits) * subBuckets + mantissa;
+    }
+
+    private long upperBound(int bucket)
+    {
+        if (bucket < subBuckets) return bucket;
+        int exponent = (bucket - subBuckets) / subBuckets + subBits;
+        int mantissa = (bucket - subBuckets) % subBuckets;
+        long lower = (long) (subBuckets + mantissa) << (exponent - subBits);
+        return lower + (1L << (exponent - subBits)) - 1;
+    }
+}
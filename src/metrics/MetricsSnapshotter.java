@@ -0,0 +1,91 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Rewrites a JSON snapshot of a DinerMetrics every period on a daemon
+// thread. The file is written next to the target and moved over it, so a
+// reader never sees half a snapshot.
+public class MetricsSnapshotter
+{
+    private final DinerMetrics metrics;
+    private final Path file;
+    private final long periodMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r ->
+    {
+        Thread t = new Thread(r, "Metrics-Snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MetricsSnapshotter(DinerMetrics metrics, Path file, long periodMs)
+    {
+        this.metrics = metrics;
+        this.file = file;
+        this.periodMs = periodMs;
+    }
+
+    public void start()
+    {
+        executor.scheduleAtFixedRate(this::write, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop()
+    {
+        executor.shutdown();
+    }
+
+    public void write()
+    {
+        try
+        {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, toJson().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not write metrics snapshot: " + e.getMessage());
+        }
+    }
+
+    String toJson()
+    {
+        double[] share = metrics.getStateShare();
+        long[] meals = metrics.getMealsPerPhilosopher();
+        long[] retries = metrics.getRetriesPerPhilosopher();
+        double[] p99 = metrics.getHungerP99MillisPerPhilosopher();
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append(String.format(Locale.ROOT, "  \"timestamp\": %d,%n", System.currentTimeMillis()));
+        json.append(String.format(Locale.ROOT, "  \"uptimeSeconds\": %.1f,%n", metrics.getUptimeSeconds()));
+        json.append(String.format(Locale.ROOT, "  \"philosophers\": %d,%n", metrics.getPhilosophers()));
+        json.append(String.format(Locale.ROOT, "  \"meals\": %d,%n", metrics.getTotalMeals()));
+        json.append(String.format(Locale.ROOT, "  \"mealsPerSecond\": %.3f,%n", metrics.getMealsPerSecond()));
+        json.append(String.format(Locale.ROOT, "  \"retries\": %d,%n", metrics.getTotalRetries()));
+        json.append(String.format(Locale.ROOT, "  \"hungerMs\": { \"count\": %d, \"mean\": %.3f, \"p50\": %.3f, \"p99\": %.3f, \"max\": %.3f },%n",
+                metrics.getHungerCount(), metrics.getHungerMeanMillis(), metrics.getHungerP50Millis(),
+                metrics.getHungerP99Millis(), metrics.getHungerMaxMillis()));
+        json.append(String.format(Locale.ROOT, "  \"stateShare\": { \"thinking\": %.4f, \"hungry\": %.4f, \"eating\": %.4f },%n",
+                share[0], share[1], share[2]));
+        json.append("  \"perPhilosopher\": [\n");
+        for (int i = 0; i < meals.length; ++i)
+        {
+            double[] state = metrics.getStateMillis(i);
+            json.append(String.format(Locale.ROOT,
+                    "    { \"id\": %d, \"meals\": %d, \"retries\": %d, \"hungerP99Ms\": %.3f, \"thinkingMs\": %.1f, \"hungryMs\": %.1f, \"eatingMs\": %.1f }%s%n",
+                    i, meals[i], i < retries.length ? retries[i] : 0, i < p99.length ? p99[i] : 0,
+                    state[0], state[1], state[2], i + 1 < meals.length ? "," : ""));
+        }
+        json.append("  ]\n}\n");
+        return json.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package metrics;
+
+import models.Table;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Totals over the tables of one shard of a Hall. Each table keeps its own
+// DinerMetrics, written only by that shard's threads; the getters add them
+// up when asked, so shards never write to shared counters.
+public class ShardMetrics implements ShardMetricsMXBean
+{
+    private final int shard;
+    private final Table[] tables;
+    private final DinerMetrics[] metrics;
+    private final long created = System.nanoTime();
+    private final AtomicLong migrationsIn = new AtomicLong();
+    private final AtomicLong migrationsOut = new AtomicLong();
+
+    public ShardMetrics(int shard, Table[] tables, DinerMetrics[] metrics)
+    {
+        this.shard = shard;
+        this.tables = tables;
+        this.metrics = metrics;
+    }
+
+    public void migratedIn() { migrationsIn.incrementAndGet(); }
+    public void migratedOut() { migrationsOut.incrementAndGet(); }
+
+    public void register(String name)
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("diningphilosophers:type=ShardMetrics,name=" + name);
+            if (!server.isRegistered(objectName)) server.registerMBean(this, objectName);
+        }
+        catch (JMException e)
+        {
+            System.out.println("Could not register shard metrics MBean: " + e.getMessage());
+        }
+    }
+
+    @Override public int getShard() { return shard; }
+    @Override public int getTables() { return tables.length; }
+    @Override public double getUptimeSeconds() { return (System.nanoTime() - created) / 1e9; }
+    @Override public long getMigrationsIn() { return migrationsIn.get(); }
+    @Override public long getMigrationsOut() { return migrationsOut.get(); }
+
+    @Override
+    public int getPhilosophers()
+    {
+        int total = 0;
+        for (Table t : tables) total += t.size();
+        return total;
+    }
+
+    @Override
+    public long getTotalMeals()
+    {
+        long total = 0;
+        for (Table t : tables) total += t.getTotalMeals();
+        return total;
+    }
+
+    @Override
+    public double getMealsPerSecond()
+    {
+        return getTotalMeals() / getUptimeSeconds();
+    }
+
+    @Override
+    public long getTotalRetries()
+    {
+        long total = 0;
+        for (DinerMetrics m : metrics) total += m.getTotalRetries();
+        return total;
+    }
+
+    @Override public double getHungerP50Millis() { return hunger().getPercentile(0.50) / 1e6; }
+    @Override public double getHungerP99Millis() { return hunger().getPercentile(0.99) / 1e6; }
+
+    private LatencyHistogram hunger()
+    {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (DinerMetrics m : metrics) m.addHungerTo(merged);
+        return merged;
+    }
+}
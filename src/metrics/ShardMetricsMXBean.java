@@ -0,0 +1,20 @@
+package metrics;
+
+// What ShardMetrics exposes over JMX, one bean per shard of a Hall. Times
+// are milliseconds.
+public interface ShardMetricsMXBean
+{
+    int getShard();
+    int getTables();
+    int getPhilosophers();
+    double getUptimeSeconds();
+
+    long getTotalMeals();
+    double getMealsPerSecond();
+    long getTotalRetries();
+    double getHungerP50Millis();
+    double getHungerP99Millis();
+
+    long getMigrationsIn();
+    long getMigrationsOut();
+}
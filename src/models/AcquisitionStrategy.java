@@ -0,0 +1,55 @@
+package models;
+
+// How a hungry philosopher gets hold of both of its chopsticks without the
+// table deadlocking. One instance is shared by the whole table.
+public interface AcquisitionStrategy
+{
+    // Blocks until p holds both chopsticks. Every chopstick taken must be
+    // reported through p.pickedUp(c), in the order it was taken. If
+    // interrupted, undoes its own bookkeeping and throws; the philosopher
+    // puts down whatever chopsticks it already holds.
+    void acquire(Philosopher p) throws InterruptedException;
+
+    // Called once p has put both chopsticks down again (or left the table
+    // after a successful acquire)
+    default void release(Philosopher p) {}
+
+    // Stands in for Timing.pause while p thinks
+    default void think(Philosopher p, long millis) throws InterruptedException
+    {
+        p.pause(millis);
+    }
+
+    // Called once every philosopher of the table has been created
+    default void seat(Philosopher[] philosophers) {}
+
+    // The table now has n seats
+    default void resize(int n) {}
+
+    // Whether seats can be added or removed while the table runs
+    default boolean isResizable() { return true; }
+
+    // Whether every wait goes through Philosopher.take, backOff or pause,
+    // so the strategy can run on a DeterministicClock
+    default boolean waitsOnClock() { return false; }
+
+    String getName();
+
+    // Stateless, safe to share between tables
+    AcquisitionStrategy RESOURCE_HIERARCHY = new ResourceHierarchyStrategy();
+
+    String[] NAMES = { "hierarchy", "waiter", "ticket", "backoff", "hygienic" };
+
+    static AcquisitionStrategy create(String name, int n)
+    {
+        switch (name)
+        {
+            case "hierarchy": return RESOURCE_HIERARCHY;
+            case "waiter": return new WaiterStrategy(n);
+            case "ticket": return new TicketStrategy();
+            case "backoff": return new BackoffStrategy();
+            case "hygienic": return new HygienicStrategy();
+            default: throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+}
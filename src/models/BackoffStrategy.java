@@ -0,0 +1,41 @@
+package models;
+
+// Take both chopsticks or neither: if the second one is busy, put the first
+// back and retry after a randomized, exponentially growing pause. Nobody
+// ever waits while holding a chopstick, so there is no deadlock, only
+// (unlikely) livelock that the random backoff breaks up.
+public class BackoffStrategy implements AcquisitionStrategy
+{
+    private static final long MIN_BACKOFF_NANOS = 10_000;      // 10 us
+    private static final long MAX_BACKOFF_NANOS = 20_000_000;  // 20 ms
+
+    @Override
+    public void acquire(Philosopher p) throws InterruptedException
+    {
+        Chopstick a = p.getChopstick1();
+        Chopstick b = p.getChopstick2();
+        long backoff = MIN_BACKOFF_NANOS;
+
+        while (true)
+        {
+            if (a.tryPickUp(p.getId()))
+            {
+                if (b.tryPickUp(p.getId())) break;
+                a.putDown();
+            }
+            p.retried();
+
+            p.backOff(backoff);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+
+        p.pickedUp(a);
+        p.pickedUp(b);
+    }
+
+    @Override
+    public String getName() { return "backoff"; }
+
+    @Override
+    public boolean waitsOnClock() { return true; }
+}
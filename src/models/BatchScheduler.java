@@ -0,0 +1,318 @@
+package models;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Centralized arbiter: diners only post "hungry" and "done" and park; one
+// scheduler thread owns every resource and, once per batch of posts, admits
+// as many hungry diners as fit next to those already eating.
+//
+// A round only looks at diners whose chances changed: new arrivals and the
+// hungry conflicts of diners that just finished. Everyone else was blocked
+// last round by resources still held, so the eater set stays maximal
+// without rescanning the queue. Candidates of the colour class with the
+// most hungry diners (ConflictGraph's greedy colouring) go first, since
+// none of them conflict with each other, then the rest oldest first.
+//
+// Against starvation the oldest hungry diner reserves its resources as they
+// come free: nobody else gets them until it eats.
+public class BatchScheduler implements GraphArbiter
+{
+    private static final byte IDLE = 0;
+    private static final byte HUNGRY = 1;
+    private static final byte EATING = 2;
+    private static final int NONE = -1;
+
+    private final ConflictGraph graph;
+    private final int n;
+
+    // Posted by diners, swapped out by the scheduler. d is hungry, -1-d is done.
+    private int[] pending = new int[64]; // Guarded by this
+    private int pendingCount;            // Likewise
+    private int[] events = new int[64];  // Scheduler thread only
+    private boolean running = true;      // Guarded by this
+
+    private final Thread[] threads;            // Written before the diner's first post
+    private final AtomicIntegerArray granted;
+
+    // Scheduler thread only
+    private final int[] owner;       // Per resource: eating diner or NONE
+    private final int[] reservedFor; // Per resource: the oldest diner, waiting for it, or NONE
+    private final byte[] status;
+    private final long[] arrival;    // Arrival order of hungry diners
+    private final int[] prev, next;  // Hungry diners, oldest first
+    private int oldest = NONE, newest = NONE;
+    private final int[] hungryPerColour;
+    private final int[] candidateStamp;
+    private int[] candidates;
+    private int candidateCount;
+    private long[] keys;
+    private int stamp;
+    private long arrivals;
+    private Thread scheduler;
+
+    private volatile long rounds, admitted, maxEaters;
+    private int eaters;
+
+    public BatchScheduler(ConflictGraph graph)
+    {
+        this.graph = graph;
+        n = graph.getDiners();
+        threads = new Thread[n];
+        granted = new AtomicIntegerArray(n);
+        owner = new int[graph.getResourceCount()];
+        reservedFor = new int[graph.getResourceCount()];
+        Arrays.fill(owner, NONE);
+        Arrays.fill(reservedFor, NONE);
+        status = new byte[n];
+        arrival = new long[n];
+        prev = new int[n];
+        next = new int[n];
+        hungryPerColour = new int[graph.getColourCount()];
+        candidateStamp = new int[n];
+        candidates = new int[64];
+        keys = new long[64];
+    }
+
+    @Override
+    public void start()
+    {
+        scheduler = new Thread(this::schedule, "Batch-Scheduler");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException
+    {
+        synchronized (this)
+        {
+            running = false;
+            notifyAll();
+        }
+        if (scheduler != null) scheduler.join();
+    }
+
+    @Override
+    public void acquire(int diner) throws InterruptedException
+    {
+        threads[diner] = Thread.currentThread();
+        post(diner);
+        while (granted.get(diner) == 0)
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+                // Withdraws the request, or gives back a grant that raced with us
+                post(-1 - diner);
+                throw new InterruptedException();
+            }
+        }
+        granted.set(diner, 0);
+    }
+
+    @Override
+    public void release(int diner)
+    {
+        post(-1 - diner);
+    }
+
+    private synchronized void post(int event)
+    {
+        if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pendingCount * 2);
+        pending[pendingCount++] = event;
+        if (pendingCount == 1) notifyAll();
+    }
+
+    private void schedule()
+    {
+        try
+        {
+            while (true)
+            {
+                int count;
+                synchronized (this)
+                {
+                    while (pendingCount == 0 && running) wait();
+                    if (!running) return;
+                    int[] full = pending;
+                    pending = events.length >= full.length ? events : new int[full.length];
+                    events = full;
+                    count = pendingCount;
+                    pendingCount = 0;
+                }
+
+                stamp++;
+                candidateCount = 0;
+                for (int i = 0; i < count; ++i)
+                {
+                    int e = events[i];
+                    if (e >= 0) hungry(e);
+                    else done(-1 - e);
+                }
+                admit();
+                rounds++;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Shutting down
+        }
+    }
+
+    private void hungry(int d)
+    {
+        status[d] = HUNGRY;
+        arrival[d] = arrivals++;
+        prev[d] = newest;
+        next[d] = NONE;
+        if (newest != NONE) next[newest] = d;
+        else oldest = d;
+        newest = d;
+        hungryPerColour[graph.getColour(d)]++;
+        if (oldest == d) reserve(d);
+        addCandidate(d);
+    }
+
+    private void done(int d)
+    {
+        granted.set(d, 0); // No grant survives a withdrawal
+        if (status[d] == HUNGRY)
+        {
+            boolean wasOldest = oldest == d;
+            unlink(d);
+            if (wasOldest)
+            {
+                // Its reservations go back to everyone
+                for (int k = graph.getNeedsStart(d); k < graph.getNeedsEnd(d); ++k)
+                {
+                    int r = graph.getResource(k);
+                    if (reservedFor[r] == d) reservedFor[r] = NONE;
+                }
+                if (oldest != NONE) reserve(oldest);
+                addConflicts(d);
+            }
+        }
+        else if (status[d] == EATING)
+        {
+            for (int k = graph.getNeedsStart(d); k < graph.getNeedsEnd(d); ++k)
+            {
+                int r = graph.getResource(k);
+                owner[r] = NONE;
+                if (oldest != NONE && reservedFor[r] == NONE && needs(oldest, r)) reservedFor[r] = oldest;
+            }
+            eaters--;
+            addConflicts(d);
+        }
+        status[d] = IDLE;
+    }
+
+    // Tries the candidates: the best colour class first, then by age
+    private void admit()
+    {
+        if (candidateCount == 0) return;
+
+        int best = 0;
+        for (int c = 1; c < hungryPerColour.length; ++c)
+            if (hungryPerColour[c] > hungryPerColour[best]) best = c;
+
+        if (keys.length < candidateCount) keys = new long[candidates.length];
+        int k = 0;
+        for (int i = 0; i < candidateCount; ++i)
+        {
+            int d = candidates[i];
+            if (status[d] != HUNGRY) continue;
+            long preferred = graph.getColour(d) == best ? 0 : 1;
+            keys[k++] = (preferred << 62) | (arrival[d] * n + d);
+        }
+        Arrays.sort(keys, 0, k);
+
+        for (int i = 0; i < k; ++i)
+        {
+            int d = (int) ((keys[i] & ~(1L << 62)) % n);
+            if (isFree(d)) grant(d);
+        }
+        if (eaters > maxEaters) maxEaters = eaters;
+    }
+
+    private boolean isFree(int d)
+    {
+        for (int k = graph.getNeedsStart(d); k < graph.getNeedsEnd(d); ++k)
+        {
+            int r = graph.getResource(k);
+            if (owner[r] != NONE || (reservedFor[r] != NONE && reservedFor[r] != d)) return false;
+        }
+        return true;
+    }
+
+    private void grant(int d)
+    {
+        boolean wasOldest = oldest == d;
+        for (int k = graph.getNeedsStart(d); k < graph.getNeedsEnd(d); ++k)
+        {
+            int r = graph.getResource(k);
+            owner[r] = d;
+            reservedFor[r] = NONE;
+        }
+        unlink(d);
+        status[d] = EATING;
+        eaters++;
+        admitted++;
+        if (wasOldest && oldest != NONE) reserve(oldest);
+
+        granted.set(d, 1);
+        LockSupport.unpark(threads[d]);
+    }
+
+    // The new oldest diner claims whatever of its resources is free now
+    private void reserve(int d)
+    {
+        for (int k = graph.getNeedsStart(d); k < graph.getNeedsEnd(d); ++k)
+        {
+            int r = graph.getResource(k);
+            if (owner[r] == NONE && reservedFor[r] == NONE) reservedFor[r] = d;
+        }
+    }
+
+    private void unlink(int d)
+    {
+        if (prev[d] != NONE) next[prev[d]] = next[d];
+        else oldest = next[d];
+        if (next[d] != NONE) prev[next[d]] = prev[d];
+        else newest = prev[d];
+        hungryPerColour[graph.getColour(d)]--;
+    }
+
+    private boolean needs(int d, int r)
+    {
+        for (int k = graph.getNeedsStart(d); k < graph.getNeedsEnd(d); ++k)
+            if (graph.getResource(k) == r) return true;
+        return false;
+    }
+
+    private void addConflicts(int d)
+    {
+        for (int k = graph.getConflictsStart(d); k < graph.getConflictsEnd(d); ++k)
+        {
+            int other = graph.getConflict(k);
+            if (status[other] == HUNGRY) addCandidate(other);
+        }
+    }
+
+    private void addCandidate(int d)
+    {
+        if (candidateStamp[d] == stamp) return;
+        candidateStamp[d] = stamp;
+        if (candidateCount == candidates.length) candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        candidates[candidateCount++] = d;
+    }
+
+    // Admission rounds run and diners admitted in them
+    public long getRounds() { return rounds; }
+    public long getAdmitted() { return admitted; }
+    public long getMaxEaters() { return maxEaters; }
+
+    @Override
+    public String getName() { return "batch"; }
+}
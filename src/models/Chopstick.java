@@ -1,31 +1,169 @@
 package models;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
 public class Chopstick
 {
+    private static final int FREE = -1;
+    private static final int HANDING_OFF = -2; // Released, but the next waiter is being picked
+
     private final int id;
-    private int owner;
+
+    // CAS instead of synchronized: no monitor to pin a virtual thread's
+    // carrier, and getOwner() sees the latest value from any thread
+    private final AtomicInteger owner;
+
+    // Philosophers blocked in pickUp, served in arrival order. putDown hands
+    // the chopstick straight to the head, so a waiter never wakes up just to
+    // find it taken again.
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
 
     public Chopstick(int chopstickId)
     {
         // Default no-owner value
-        owner = -1;
+        owner = new AtomicInteger(FREE);
         id = chopstickId;
     }
-    public synchronized boolean tryPickUp(int philosopherIndex)
+
+    public boolean tryPickUp(int philosopherIndex)
+    {
+        return owner.compareAndSet(FREE, philosopherIndex);
+    }
+
+    // Blocks until the chopstick is handed over. If interrupted while
+    // waiting, gives up its place in line and throws.
+    public void pickUp(int philosopherIndex) throws InterruptedException
+    {
+        if (tryPickUp(philosopherIndex)) return;
+        if (!await(enqueue(philosopherIndex), true, false, 0))
+        {
+            Thread.interrupted();
+            throw new InterruptedException();
+        }
+    }
+
+    public void pickUpUninterruptibly(int philosopherIndex)
+    {
+        if (tryPickUp(philosopherIndex)) return;
+        await(enqueue(philosopherIndex), false, false, 0);
+    }
+
+    // Waits at most the given time, returns whether the chopstick was taken
+    public boolean tryPickUp(int philosopherIndex, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        if (tryPickUp(philosopherIndex)) return true;
+        if (timeout <= 0) return false;
+
+        Waiter w = enqueue(philosopherIndex);
+        if (await(w, true, true, System.nanoTime() + unit.toNanos(timeout))) return true;
+        if (Thread.interrupted()) throw new InterruptedException();
+        return false;
+    }
+
+    public void putDown()
+    {
+        for (;;)
+        {
+            Waiter next = waiters.poll();
+            if (next == null)
+            {
+                owner.set(FREE);
+
+                // A waiter may have queued up after the poll but before the
+                // release; whoever wins this CAS serves it
+                if (waiters.isEmpty() || !owner.compareAndSet(FREE, HANDING_OFF)) return;
+                continue;
+            }
+
+            if (next.status.compareAndSet(Waiter.WAITING, Waiter.GRANTED))
+            {
+                owner.set(next.philosopher);
+                LockSupport.unpark(next.thread);
+                return;
+            }
+            // Cancelled (timed out or interrupted), try the next one
+        }
+    }
+
+    private Waiter enqueue(int philosopherIndex)
     {
-        if (owner == -1)
+        Waiter w = new Waiter(philosopherIndex);
+        waiters.add(w);
+
+        // Released while we were queueing up: serve the queue ourselves
+        if (owner.compareAndSet(FREE, HANDING_OFF)) putDown();
+        return w;
+    }
+
+    // Parks until granted. Returns false if it gave up (interrupt or
+    // deadline) before the chopstick was handed over; after an interrupt
+    // the thread's flag is left set.
+    private boolean await(Waiter w, boolean interruptible, boolean timed, long deadline)
+    {
+        boolean interrupted = false;
+        while (w.status.get() == Waiter.WAITING)
         {
-            owner = philosopherIndex;
-            return true;
+            if (!timed) LockSupport.park(this);
+            else
+            {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                {
+                    if (cancel(w)) return false;
+                    continue; // Lost the race to putDown, it's ours
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            if (Thread.interrupted())
+            {
+                if (interruptible && cancel(w))
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                interrupted = true;
+            }
         }
-        else return false;
+
+        // Granted. Wait out the short window before putDown publishes us as owner.
+        while (owner.get() != w.philosopher) Thread.onSpinWait();
+
+        // Handed over just as we were interrupted: keep the chopstick and leave
+        // the flag set, the caller's next sleep will throw and release it
+        if (interrupted) Thread.currentThread().interrupt();
+        return true;
     }
-    public synchronized void putDown()
+
+    private boolean cancel(Waiter w)
     {
-        owner = -1;
+        if (!w.status.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) return false;
+        waiters.remove(w);
+        return true;
     }
 
     // Getters
     public int getId() { return id; }
-    public int getOwner() { return owner; }
-}
\ No newline at end of file
+    public int getOwner()
+    {
+        int o = owner.get();
+        return o == HANDING_OFF ? FREE : o;
+    }
+    public int getWaiting() { return waiters.size(); }
+
+    private static class Waiter
+    {
+        static final int WAITING = 0;
+        static final int GRANTED = 1;
+        static final int CANCELLED = 2;
+
+        final int philosopher;
+        final Thread thread = Thread.currentThread();
+        final AtomicInteger status = new AtomicInteger(WAITING);
+
+        Waiter(int philosopher) { this.philosopher = philosopher; }
+    }
+}
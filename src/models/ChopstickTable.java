@@ -0,0 +1,69 @@
+package models;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// All chopstick owners of a table in one int array. Same owner semantics
+// as Chopstick (-1 means free), but no object header or monitor per
+// chopstick, so millions of them fit comfortably. Every access is a CAS or
+// a release/acquire access on the slot, so it's lock-free and owners are
+// safely published to any reader.
+//
+// With padding, each owner sits alone on its own 64-byte cache line, so
+// neighbouring chopsticks taken by different cores don't false-share.
+public class ChopstickTable
+{
+    private static final int FREE = -1;
+    private static final int CACHE_LINE_INTS = 64 / Integer.BYTES;
+    private static final VarHandle OWNERS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int size;
+    private final int stride;
+    private final int[] owners;
+
+    public ChopstickTable(int size, boolean padded)
+    {
+        this.size = size;
+        stride = padded ? CACHE_LINE_INTS : 1;
+
+        // Padded tables keep a spare line at each end so the first and last
+        // slots don't share a line with the array header or the next object
+        long length = padded ? (long) (size + 2) * stride : size;
+        if (length > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Too many chopsticks for one table: " + size);
+
+        owners = new int[(int) length];
+        Arrays.fill(owners, FREE);
+    }
+
+    public boolean tryPickUp(int chopstick, int philosopherIndex)
+    {
+        return OWNERS.compareAndSet(owners, slot(chopstick), FREE, philosopherIndex);
+    }
+
+    public void putDown(int chopstick)
+    {
+        OWNERS.setRelease(owners, slot(chopstick), FREE);
+    }
+
+    // Only releases if the given philosopher is still the owner
+    public boolean putDown(int chopstick, int philosopherIndex)
+    {
+        return OWNERS.compareAndSet(owners, slot(chopstick), philosopherIndex, FREE);
+    }
+
+    public int getOwner(int chopstick)
+    {
+        return (int) OWNERS.getAcquire(owners, slot(chopstick));
+    }
+
+    private int slot(int chopstick)
+    {
+        if (chopstick < 0 || chopstick >= size) throw new ArrayIndexOutOfBoundsException(chopstick);
+        return stride == 1 ? chopstick : (chopstick + 1) * stride;
+    }
+
+    public int size() { return size; }
+    public boolean isPadded() { return stride != 1; }
+}
@@ -0,0 +1,197 @@
+package models;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Who needs which shared resources, for tables that aren't a ring: diner d
+// needs every resource in needs(d) at once to eat, any number of them, and
+// two diners conflict when they need a common resource. The ring is the
+// special case of two resources per diner, each shared by two neighbours.
+//
+// Stored as flat arrays (CSR): diner d's resources are
+// resources[needsStart[d] .. needsStart[d+1]-1], in ascending order, and
+// likewise its conflicting diners in conflicts[conflictStart[d] ..].
+public class ConflictGraph
+{
+    public static final String[] TOPOLOGIES = { "ring", "grid", "random" };
+
+    private final String name;
+    private final int diners;
+    private final int resourceCount;
+    private final int[] needsStart;
+    private final int[] resources;
+    private final int[] conflictStart;
+    private final int[] conflicts;
+    private final int[] colours;
+    private final int colourCount;
+
+    // needs[d] lists the resources of diner d, each below resourceCount
+    public ConflictGraph(String name, int[][] needs, int resourceCount)
+    {
+        if (needs.length < 2) throw new IllegalArgumentException("A table needs at least 2 diners");
+
+        this.name = name;
+        this.diners = needs.length;
+        this.resourceCount = resourceCount;
+
+        needsStart = new int[diners + 1];
+        for (int d = 0; d < diners; ++d) needsStart[d + 1] = needsStart[d] + needs[d].length;
+        resources = new int[needsStart[diners]];
+        for (int d = 0; d < diners; ++d)
+        {
+            int[] sorted = needs[d].clone();
+            Arrays.sort(sorted);
+            for (int k = 0; k < sorted.length; ++k)
+            {
+                if (sorted[k] < 0 || sorted[k] >= resourceCount) throw new IllegalArgumentException("No resource " + sorted[k]);
+                if (k > 0 && sorted[k] == sorted[k - 1]) throw new IllegalArgumentException("Diner " + d + " needs " + sorted[k] + " twice");
+            }
+            System.arraycopy(sorted, 0, resources, needsStart[d], sorted.length);
+        }
+
+        // Users of each resource, then every diner's conflicts through them
+        int[] usersStart = new int[resourceCount + 1];
+        for (int r : resources) usersStart[r + 1]++;
+        for (int r = 0; r < resourceCount; ++r) usersStart[r + 1] += usersStart[r];
+        int[] users = new int[resources.length];
+        int[] fill = Arrays.copyOf(usersStart, resourceCount);
+        for (int d = 0; d < diners; ++d)
+            for (int k = needsStart[d]; k < needsStart[d + 1]; ++k) users[fill[resources[k]]++] = d;
+
+        int[] seen = new int[diners];
+        Arrays.fill(seen, -1);
+        int[] buffer = new int[16];
+        conflictStart = new int[diners + 1];
+        int size = 0;
+        for (int d = 0; d < diners; ++d)
+        {
+            for (int k = needsStart[d]; k < needsStart[d + 1]; ++k)
+            {
+                int r = resources[k];
+                for (int u = usersStart[r]; u < usersStart[r + 1]; ++u)
+                {
+                    int other = users[u];
+                    if (other == d || seen[other] == d) continue;
+                    seen[other] = d;
+                    if (size == buffer.length) buffer = Arrays.copyOf(buffer, size * 2);
+                    buffer[size++] = other;
+                }
+            }
+            conflictStart[d + 1] = size;
+        }
+        conflicts = Arrays.copyOf(buffer, size);
+
+        colours = new int[diners];
+        colourCount = colour();
+    }
+
+    // Greedy colouring, highest degree first (Welsh-Powell): each diner gets
+    // the smallest colour none of its already coloured conflicts has. Every
+    // colour class is a set of diners that can all eat at once.
+    private int colour()
+    {
+        Integer[] order = new Integer[diners];
+        for (int d = 0; d < diners; ++d) order[d] = d;
+        Arrays.sort(order, (a, b) -> Integer.compare(getDegree(b), getDegree(a)));
+
+        Arrays.fill(colours, -1);
+        int[] taken = new int[diners + 1]; // taken[c] == d + 1: a conflict of d has colour c
+        int count = 0;
+        for (int d : order)
+        {
+            for (int k = conflictStart[d]; k < conflictStart[d + 1]; ++k)
+            {
+                int c = colours[conflicts[k]];
+                if (c >= 0) taken[c] = d + 1;
+            }
+            int c = 0;
+            while (taken[c] == d + 1) c++;
+            colours[d] = c;
+            count = Math.max(count, c + 1);
+        }
+        return count;
+    }
+
+    // Ring of n: diner i needs resources i and i+1 (mod n), like Table
+    public static ConflictGraph ring(int n)
+    {
+        int[][] needs = new int[n][];
+        for (int i = 0; i < n; ++i) needs[i] = new int[] { i, (i + 1) % n };
+        return new ConflictGraph("ring", needs, n);
+    }
+
+    // Diners on the cells of a width x height torus, resources on its
+    // corners: each diner needs its 4 corners and conflicts with its 8
+    // surrounding cells
+    public static ConflictGraph grid(int width, int height)
+    {
+        if (width < 2 || height < 2) throw new IllegalArgumentException("A grid needs at least 2x2 cells");
+
+        int[][] needs = new int[width * height][];
+        for (int y = 0; y < height; ++y)
+        {
+            for (int x = 0; x < width; ++x)
+            {
+                int right = (x + 1) % width, down = (y + 1) % height;
+                needs[y * width + x] = new int[] { y * width + x, y * width + right, down * width + x, down * width + right };
+            }
+        }
+        return new ConflictGraph("grid", needs, width * height);
+    }
+
+    // Hypergraph: each diner needs k distinct resources picked uniformly
+    // from resourceCount
+    public static ConflictGraph random(int diners, int resourceCount, int k, long seed)
+    {
+        if (k < 1 || k > resourceCount) throw new IllegalArgumentException("Can't pick " + k + " of " + resourceCount + " resources");
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] pool = new int[resourceCount];
+        for (int r = 0; r < resourceCount; ++r) pool[r] = r;
+        int[][] needs = new int[diners][];
+        for (int d = 0; d < diners; ++d)
+        {
+            // Partial Fisher-Yates: the first k of the pool
+            for (int j = 0; j < k; ++j)
+            {
+                int swap = j + random.nextInt(resourceCount - j);
+                int t = pool[j];
+                pool[j] = pool[swap];
+                pool[swap] = t;
+            }
+            needs[d] = Arrays.copyOf(pool, k);
+        }
+        return new ConflictGraph("random", needs, resourceCount);
+    }
+
+    // Diners is rounded down to a whole grid (width = sqrt(diners)); resources
+    // and k only apply to the random graph
+    public static ConflictGraph create(String topology, int diners, int resourceCount, int k, long seed)
+    {
+        switch (topology)
+        {
+            case "ring": return ring(diners);
+            case "grid":
+                int width = (int) Math.sqrt(diners);
+                return grid(width, diners / width);
+            case "random": return random(diners, resourceCount, k, seed);
+            default: throw new IllegalArgumentException("Unknown topology: " + topology);
+        }
+    }
+
+    public String getName() { return name; }
+    public int getDiners() { return diners; }
+    public int getResourceCount() { return resourceCount; }
+    public int getNeedsStart(int d) { return needsStart[d]; }
+    public int getNeedsEnd(int d) { return needsStart[d + 1]; }
+    public int getResource(int k) { return resources[k]; }
+    public int getConflictsStart(int d) { return conflictStart[d]; }
+    public int getConflictsEnd(int d) { return conflictStart[d + 1]; }
+    public int getConflict(int k) { return conflicts[k]; }
+    public int getDegree(int d) { return conflictStart[d + 1] - conflictStart[d]; }
+    public int getColour(int d) { return colours[d]; }
+    public int getColourCount() { return colourCount; }
+
+    public double getMeanNeeds() { return (double) resources.length / diners; }
+    public double getMeanDegree() { return (double) conflicts.length / diners; }
+}
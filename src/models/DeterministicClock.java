@@ -0,0 +1,148 @@
+package models;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Virtual time for reproducible runs: exactly one philosopher thread runs at
+// a time, and time only moves when all of them wait on the clock. Then the
+// wait ending first (ties by philosopher id) is let go and the clock jumps
+// to its end, so a table and a seed always give the same sequence of state
+// changes, however the OS schedules the threads. Runs as fast as the
+// philosophers can, speed and pause don't apply.
+//
+// Every blocking wait of the philosophers has to be a sleep on this clock;
+// Table only accepts strategies that work that way. Threads that aren't
+// philosophers (a benchmark waiting for the end of the run) also sleep in
+// turn, after the philosophers due at the same time, and keep the turn
+// once woken: the table stays frozen while they look at it. Shutting the
+// table down (interrupts) isn't sequenced.
+public class DeterministicClock extends SimulationClock
+{
+    private static final int OBSERVER = Integer.MAX_VALUE; // Sorts after every philosopher
+
+    private final PriorityQueue<Sleeper> sleepers = new PriorityQueue<>();
+    private final ThreadLocal<Integer> participant = new ThreadLocal<>();
+    private volatile long now;
+    private long sequence;
+    private int running; // Philosopher threads not waiting on the clock, plus a woken observer
+
+    // participants: the philosopher threads about to start
+    public DeterministicClock(int participants)
+    {
+        super(false);
+        running = participants;
+    }
+
+    @Override
+    public boolean isVirtual() { return true; }
+
+    @Override
+    public void enter(int id)
+    {
+        participant.set(id);
+    }
+
+    @Override
+    public synchronized void leave()
+    {
+        if (participant.get() == null) return;
+        participant.remove();
+        running--;
+        dispatch();
+    }
+
+    @Override
+    public long nanoTime()
+    {
+        return now;
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException
+    {
+        if (Thread.interrupted()) throw new InterruptedException();
+
+        Integer id = participant.get();
+        Sleeper s;
+        synchronized (this)
+        {
+            s = new Sleeper(now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)), id != null ? id : OBSERVER,
+                    sequence++);
+            sleepers.add(s);
+            if (id != null) running--;
+            dispatch();
+        }
+
+        // Parked rather than waiting on the monitor: each turn wakes only the thread it goes to
+        while (!s.woken)
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+                synchronized (this)
+                {
+                    // Carries on out of turn, as a running thread
+                    if (sleepers.remove(s) && id != null) running++;
+                }
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    // Wakes the next sleeper once nobody runs
+    private void dispatch()
+    {
+        if (running > 0 || sleepers.isEmpty()) return;
+
+        Sleeper s = sleepers.poll();
+        now = Math.max(now, s.deadline);
+        running++;
+        s.woken = true;
+        LockSupport.unpark(s.thread);
+    }
+
+    @Override
+    public long toRealNanos(long simNanos) { return 0; }
+
+    @Override
+    public void setSpeed(double speed) { unsupported(); }
+
+    @Override
+    public void pause() { unsupported(); }
+
+    @Override
+    public void resume() { unsupported(); }
+
+    @Override
+    public void step(long millis) { unsupported(); }
+
+    private static void unsupported()
+    {
+        throw new UnsupportedOperationException("A deterministic clock can't be sped up or paused");
+    }
+
+    private static class Sleeper implements Comparable<Sleeper>
+    {
+        final long deadline;
+        final int id;
+        final long sequence;
+        final Thread thread = Thread.currentThread();
+        volatile boolean woken;
+
+        Sleeper(long deadline, int id, long sequence)
+        {
+            this.deadline = deadline;
+            this.id = id;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Sleeper other)
+        {
+            if (deadline != other.deadline) return Long.compare(deadline, other.deadline);
+            if (id != other.id) return Integer.compare(id, other.id);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package models;
+
+// Everything a philosopher reports while dining. DinerPanel renders it,
+// headless runs can simply ignore it.
+public interface DinerListener
+{
+    void logMonitor(String message);
+
+    // A step of the philosopher's cycle as primitives, EventLog codes, so
+    // nothing is built unless someone reads it. chopstick -1 if none.
+    void logEvent(long nanos, int philosopher, int event, int chopstick);
+    void updateStatusPanel(Philosopher p);
+    void updatePhilosopherLabel(Philosopher p);
+
+    // Orientation 0 for left, 1 for right
+    // Direction 1 if outwards (pick-up movement), 0 if inwards (put-down movement)
+    void animateMoveChopstick(Philosopher p, Chopstick c, int orientation, int direction);
+
+    DinerListener NONE = new DinerListener()
+    {
+        @Override public void logMonitor(String message) {}
+        @Override public void logEvent(long nanos, int philosopher, int event, int chopstick) {}
+        @Override public void updateStatusPanel(Philosopher p) {}
+        @Override public void updatePhilosopherLabel(Philosopher p) {}
+        @Override public void animateMoveChopstick(Philosopher p, Chopstick c, int orientation, int direction) {}
+    };
+}
@@ -0,0 +1,25 @@
+package models;
+
+// How a think or eat duration of base + jitter is drawn, from a uniform
+// sample u in [0, 1)
+public enum Distribution
+{
+    UNIFORM,     // base + u * jitter, the original behaviour
+    EXPONENTIAL, // Same mean, but with the long tail of memoryless arrivals
+    FIXED;       // Always the mean
+
+    public static Distribution parse(String value)
+    {
+        return valueOf(value.toUpperCase());
+    }
+
+    public int sample(int base, int jitter, double u)
+    {
+        switch (this)
+        {
+            case EXPONENTIAL: return (int) Math.round(-(base + jitter / 2.0) * Math.log(1 - u));
+            case FIXED: return base + jitter / 2;
+            default: return base + (int) (u * jitter);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package models;
+
+import java.lang.reflect.Method;
+
+// How philosopher loops get a thread. VIRTUAL needs a JDK with virtual
+// threads (21+); the project still compiles at language level 17, so the
+// builder is looked up reflectively and we fall back to platform threads.
+public enum ExecutionMode
+{
+    PLATFORM,
+    VIRTUAL;
+
+    private static final Method OF_VIRTUAL = lookup("java.lang.Thread", "ofVirtual");
+    private static final Method BUILDER_NAME = lookup("java.lang.Thread$Builder", "name", String.class);
+    private static final Method BUILDER_UNSTARTED = lookup("java.lang.Thread$Builder", "unstarted", Runnable.class);
+
+    public static ExecutionMode parse(String value)
+    {
+        return valueOf(value.toUpperCase());
+    }
+
+    public boolean isSupported()
+    {
+        return this == PLATFORM || OF_VIRTUAL != null;
+    }
+
+    public Thread newThread(Runnable task, String name)
+    {
+        if (this == VIRTUAL && isSupported())
+        {
+            try
+            {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+            }
+            catch (ReflectiveOperationException e)
+            {
+                throw new IllegalStateException("Could not create virtual thread", e);
+            }
+        }
+        return new Thread(task, name);
+    }
+
+    private static Method lookup(String className, String method, Class<?>... parameters)
+    {
+        try
+        {
+            return Class.forName(className).getMethod(method, parameters);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;
+        }
+    }
+}
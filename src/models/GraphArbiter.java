@@ -0,0 +1,31 @@
+package models;
+
+// Hands a GraphDiner every resource it needs at once, the ConflictGraph
+// counterpart of AcquisitionStrategy. One instance serves the whole graph.
+public interface GraphArbiter
+{
+    // Blocks until diner holds all of its resources. If interrupted, gives
+    // up whatever it was granted and throws.
+    void acquire(int diner) throws InterruptedException;
+
+    // Gives back everything acquire granted
+    void release(int diner);
+
+    // Before and after the diners run, for arbiters with a thread of their own
+    default void start() {}
+    default void stop() throws InterruptedException {}
+
+    String getName();
+
+    String[] NAMES = { "ordered", "batch" };
+
+    static GraphArbiter create(String name, ConflictGraph graph)
+    {
+        switch (name)
+        {
+            case "ordered": return new OrderedArbiter(graph);
+            case "batch": return new BatchScheduler(graph);
+            default: throw new IllegalArgumentException("Unknown arbiter: " + name);
+        }
+    }
+}
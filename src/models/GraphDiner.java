@@ -0,0 +1,71 @@
+package models;
+
+import metrics.LatencyHistogram;
+
+import java.util.SplittableRandom;
+
+// A diner of a ConflictGraph: thinks, gets every resource it needs from the
+// arbiter, eats and gives them back, with a Philosopher's timing but
+// without the GUI callbacks. Meals and time spent eating are only written
+// by its own thread.
+public class GraphDiner implements Runnable
+{
+    private final int id;
+    private final GraphArbiter arbiter;
+    private final Timing timing;
+    private final LatencyHistogram hunger; // Shared by the whole graph
+    private SplittableRandom random = new SplittableRandom();
+    private volatile long meals;
+    private volatile long eatingNanos;
+
+    public GraphDiner(int id, GraphArbiter arbiter, Timing timing, LatencyHistogram hunger)
+    {
+        this.id = id;
+        this.arbiter = arbiter;
+        this.timing = timing;
+        this.hunger = hunger;
+    }
+
+    @Override
+    public void run()
+    {
+        SimulationClock clock = timing.getClock();
+        try
+        {
+            timing.pause(timing.getJoinDelay());
+            while (true)
+            {
+                timing.pause(timing.thinkTime(random.nextDouble()));
+
+                long hungrySince = clock.nanoTime();
+                arbiter.acquire(id);
+                long start = clock.nanoTime();
+                hunger.record(start - hungrySince);
+                meals++;
+                try
+                {
+                    timing.pause(timing.eatTime(random.nextDouble()));
+                }
+                finally
+                {
+                    arbiter.release(id);
+                    eatingNanos += clock.nanoTime() - start;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // Leaving the table
+        }
+    }
+
+    // Before the thread starts, like Philosopher.setSeed
+    public void setSeed(long runSeed)
+    {
+        random = new SplittableRandom(Philosopher.mix(Philosopher.mix(runSeed) + id));
+    }
+
+    public int getId() { return id; }
+    public long getMeals() { return meals; }
+    public long getEatingNanos() { return eatingNanos; }
+}
@@ -0,0 +1,129 @@
+package models;
+
+import metrics.DinerMetrics;
+import metrics.ShardMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Many independent tables, split into shards of neighbouring tables. Each
+// table has its own chopsticks, strategy and DinerMetrics; a shard only
+// ever touches its own tables, so shards share no written state and their
+// threads scale out across cores. Philosophers can move between tables: a
+// seat leaves one table and a new seat joins the other, at their seams.
+//
+// Threads are named after their shard ("Shard-2-Table-17-Philosopher-3")
+// so a shard can be pinned from outside (taskset on the native thread ids);
+// the JDK itself can't bind a thread to a core.
+public class Hall
+{
+    private final Table[] tables;
+    private final int[] shardOf;
+    private final ShardMetrics[] shards;
+    private final ExecutionMode executionMode;
+    private final Map<Philosopher, Thread> threads = new ConcurrentHashMap<>();
+    private boolean started;
+
+    public Hall(int tableCount, int seats, int shardCount, String strategyName, Timing timing,
+                ExecutionMode executionMode)
+    {
+        if (tableCount < 1) throw new IllegalArgumentException("A hall needs at least 1 table");
+        shardCount = Math.max(1, Math.min(shardCount, tableCount));
+
+        this.executionMode = executionMode;
+        tables = new Table[tableCount];
+        shardOf = new int[tableCount];
+        DinerMetrics[] metrics = new DinerMetrics[tableCount];
+        for (int t = 0; t < tableCount; ++t)
+        {
+            tables[t] = new Table(seats, DinerListener.NONE, AcquisitionStrategy.create(strategyName, seats), timing);
+            metrics[t] = new DinerMetrics(seats);
+            tables[t].setMetrics(metrics[t]);
+            shardOf[t] = (int) ((long) t * shardCount / tableCount); // Contiguous blocks of tables
+        }
+
+        shards = new ShardMetrics[shardCount];
+        int first = 0;
+        for (int s = 0; s < shardCount; ++s)
+        {
+            int end = first;
+            while (end < tableCount && shardOf[end] == s) end++;
+            Table[] shardTables = new Table[end - first];
+            DinerMetrics[] shardMetrics = new DinerMetrics[end - first];
+            System.arraycopy(tables, first, shardTables, 0, end - first);
+            System.arraycopy(metrics, first, shardMetrics, 0, end - first);
+            shards[s] = new ShardMetrics(s, shardTables, shardMetrics);
+            first = end;
+        }
+    }
+
+    // Table t's philosophers draw from seed + t. Before start.
+    public void setSeed(long seed)
+    {
+        for (int t = 0; t < tables.length; ++t) tables[t].setSeed(seed + t);
+    }
+
+    // Every shard's metrics over JMX, as name-shard-i
+    public void register(String name)
+    {
+        for (int s = 0; s < shards.length; ++s) shards[s].register(name + "-shard-" + s);
+    }
+
+    public synchronized void start()
+    {
+        if (started) return;
+        started = true;
+        for (int t = 0; t < tables.length; ++t)
+            for (Philosopher p : tables[t].getPhilosophers()) startThread(t, p);
+    }
+
+    // Interrupts every philosopher and waits for them to leave
+    public void stop() throws InterruptedException
+    {
+        synchronized (this)
+        {
+            started = false;
+        }
+        for (Thread t : threads.values()) t.interrupt();
+        for (Thread t : threads.values()) t.join();
+        threads.clear();
+    }
+
+    // Moves a philosopher from table from to table to. False if either table
+    // can't change size or from is down to its last 2 seats.
+    public synchronized boolean migrate(int from, int to)
+    {
+        if (from == to || !tables[from].isResizable() || !tables[to].isResizable() || tables[from].size() <= 2)
+            return false;
+
+        Thread leaving = threads.remove(tables[from].removeSeat());
+        if (leaving != null) leaving.interrupt();
+        Philosopher joined = tables[to].addSeat();
+        if (started) startThread(to, joined);
+
+        shards[shardOf[from]].migratedOut();
+        shards[shardOf[to]].migratedIn();
+        return true;
+    }
+
+    public long getTotalMeals()
+    {
+        long total = 0;
+        for (Table t : tables) total += t.getTotalMeals();
+        return total;
+    }
+
+    public int getTableCount() { return tables.length; }
+    public Table getTable(int t) { return tables[t]; }
+    public int getShardOf(int t) { return shardOf[t]; }
+    public int getShardCount() { return shards.length; }
+    public ShardMetrics getShard(int s) { return shards[s]; }
+
+    private void startThread(int table, Philosopher p)
+    {
+        Thread thread = executionMode.newThread(p,
+                "Shard-" + shardOf[table] + "-Table-" + table + "-Philosopher-" + p.getId());
+        threads.put(p, thread);
+        thread.start();
+    }
+}
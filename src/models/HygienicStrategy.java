@@ -0,0 +1,194 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Chandy-Misra "hygienic" philosophers. Forks are never locked: each fork is
+// held by exactly one of its two philosophers, and the other holds a request
+// token for it. Philosophers only talk to their neighbours through their own
+// mailbox:
+//  - a hungry philosopher sends the token for every fork it lacks;
+//  - a dirty fork is cleaned and given away on request, unless its holder is
+//    eating; a clean fork is kept until its holder has eaten;
+//  - eating makes both forks dirty, and deferred requests are served after.
+// Forks start dirty with the lower id of each pair, so the precedence graph
+// is acyclic and stays so: no deadlock, no starvation.
+//
+// The Chopstick objects are only tagged with an owner while their fork is
+// in use, so DinerPanel can draw them where they are.
+public class HygienicStrategy implements AcquisitionStrategy
+{
+    private static final int REQUEST = 0;
+    private static final int FORK = 1;
+
+    private volatile Map<Philosopher, Diner> diners = new IdentityHashMap<>();
+
+    @Override
+    public void seat(Philosopher[] philosophers)
+    {
+        Map<Chopstick, List<Philosopher>> sharing = new IdentityHashMap<>();
+        for (Philosopher p : philosophers)
+        {
+            sharing.computeIfAbsent(p.getChopstick1(), c -> new ArrayList<>()).add(p);
+            sharing.computeIfAbsent(p.getChopstick2(), c -> new ArrayList<>()).add(p);
+        }
+
+        Map<Philosopher, Diner> seated = new IdentityHashMap<>();
+        for (Philosopher p : philosophers) seated.put(p, new Diner(p));
+
+        for (Diner d : seated.values())
+        {
+            for (int side = 0; side < 2; ++side)
+            {
+                List<Philosopher> pair = sharing.get(d.fork(side));
+                Philosopher other = pair.get(0) == d.philosopher ? pair.get(1) : pair.get(0);
+                d.neighbours[side] = seated.get(other);
+                d.haveFork[side] = d.philosopher.getId() < other.getId();
+                d.dirty[side] = true;
+                d.haveToken[side] = !d.haveFork[side];
+            }
+        }
+
+        // Publish the finished wiring before any philosopher thread reads it
+        diners = seated;
+    }
+
+    @Override
+    public void think(Philosopher p, long millis) throws InterruptedException
+    {
+        // Keep answering requests while thinking: a thinking philosopher
+        // gives up its dirty forks right away
+        Diner d = diners.get(p);
+        SimulationClock clock = p.getTiming().getClock();
+        long deadline = clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while ((remaining = deadline - clock.nanoTime()) > 0)
+        {
+            Message m = d.mailbox.poll(clock.toRealNanos(remaining), TimeUnit.NANOSECONDS);
+            if (m != null) d.handle(m);
+        }
+    }
+
+    @Override
+    public void acquire(Philosopher p) throws InterruptedException
+    {
+        Diner d = diners.get(p);
+        d.hungry = true;
+        try
+        {
+            for (int side = 0; side < 2; ++side)
+                if (!d.haveFork[side] && d.haveToken[side]) d.request(side);
+
+            while (!d.haveFork[0] || !d.haveFork[1])
+                d.handle(d.mailbox.take());
+        }
+        finally
+        {
+            d.hungry = false;
+        }
+
+        // Both forks are ours until release(); nobody else can be reaching for
+        // these chopsticks, the tags can't fail
+        d.eating = true;
+        for (int side = 0; side < 2; ++side)
+        {
+            d.fork(side).tryPickUp(p.getId());
+            p.pickedUp(d.fork(side));
+        }
+    }
+
+    @Override
+    public void release(Philosopher p)
+    {
+        Diner d = diners.get(p);
+        d.eating = false;
+        for (int side = 0; side < 2; ++side)
+        {
+            d.dirty[side] = true;
+            if (d.haveFork[side] && d.haveToken[side]) d.give(side); // Deferred while we were eating
+        }
+    }
+
+    // Fork ownership lives in the diners, wired once for a fixed ring
+    @Override
+    public boolean isResizable() { return false; }
+
+    @Override
+    public String getName() { return "hygienic"; }
+
+    private static class Message
+    {
+        final int type;
+        final Chopstick fork;
+
+        Message(int type, Chopstick fork)
+        {
+            this.type = type;
+            this.fork = fork;
+        }
+    }
+
+    // One philosopher's private view of its two forks (side 0 is chopstick1,
+    // side 1 chopstick2). Only touched by that philosopher's thread; the
+    // mailbox is the only thing neighbours share.
+    private static class Diner
+    {
+        final Philosopher philosopher;
+        final LinkedBlockingQueue<Message> mailbox = new LinkedBlockingQueue<>();
+        final Diner[] neighbours = new Diner[2];
+        final boolean[] haveFork = new boolean[2];
+        final boolean[] dirty = new boolean[2];
+        final boolean[] haveToken = new boolean[2];
+        boolean hungry;
+        boolean eating;
+
+        Diner(Philosopher philosopher) { this.philosopher = philosopher; }
+
+        Chopstick fork(int side)
+        {
+            return side == 0 ? philosopher.getChopstick1() : philosopher.getChopstick2();
+        }
+
+        int side(Chopstick c)
+        {
+            return c == philosopher.getChopstick1() ? 0 : 1;
+        }
+
+        void handle(Message m)
+        {
+            int side = side(m.fork);
+            if (m.type == FORK)
+            {
+                haveFork[side] = true;
+                dirty[side] = false;
+                return;
+            }
+
+            haveToken[side] = true;
+            if (haveFork[side] && dirty[side] && !eating)
+            {
+                give(side);
+                if (hungry) request(side); // We still need it back
+            }
+        }
+
+        // The token stays with us, so we can ask for the fork back later
+        void give(int side)
+        {
+            haveFork[side] = false;
+            dirty[side] = false;
+            neighbours[side].mailbox.add(new Message(FORK, fork(side)));
+        }
+
+        void request(int side)
+        {
+            philosopher.retried();
+            haveToken[side] = false;
+            neighbours[side].mailbox.add(new Message(REQUEST, fork(side)));
+        }
+    }
+}
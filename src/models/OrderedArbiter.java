@@ -0,0 +1,45 @@
+package models;
+
+// The decentralized loop: each diner's own thread takes its resources one
+// by one in ascending id order, the resource hierarchy generalized to k
+// resources, blocking on each like a philosopher on a Chopstick.
+public class OrderedArbiter implements GraphArbiter
+{
+    private final ConflictGraph graph;
+    private final Chopstick[] resources;
+
+    public OrderedArbiter(ConflictGraph graph)
+    {
+        this.graph = graph;
+        resources = new Chopstick[graph.getResourceCount()];
+        for (int r = 0; r < resources.length; ++r) resources[r] = new Chopstick(r);
+    }
+
+    @Override
+    public void acquire(int diner) throws InterruptedException
+    {
+        int start = graph.getNeedsStart(diner);
+        for (int k = start; k < graph.getNeedsEnd(diner); ++k)
+        {
+            try
+            {
+                resources[graph.getResource(k)].pickUp(diner);
+            }
+            catch (InterruptedException e)
+            {
+                for (int j = k - 1; j >= start; --j) resources[graph.getResource(j)].putDown();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void release(int diner)
+    {
+        for (int k = graph.getNeedsEnd(diner) - 1; k >= graph.getNeedsStart(diner); --k)
+            resources[graph.getResource(k)].putDown();
+    }
+
+    @Override
+    public String getName() { return "ordered"; }
+}
@@ -1,22 +1,52 @@
 package models;
 
-import graphics.DinerPanel;
+import journal.EventJournal;
+import journal.EventLog;
+import metrics.DinerMetrics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 public class Philosopher implements Runnable
 {
-    private Chopstick chopstick1;
-    private Chopstick chopstick2;
-    private int state;
+    private static final long RETRY_MILLIS = 1; // How often a virtual clock's philosopher checks a busy chopstick
+
+    private volatile Chopstick chopstick1;
+    private volatile Chopstick chopstick2;
+
+    // Chopsticks a resize swapped in, taken over by this philosopher's own
+    // thread at the top of its loop, when it holds neither chopstick
+    private final AtomicReferenceArray<Chopstick> rewired = new AtomicReferenceArray<>(2);
+    private volatile int state;
+    private volatile long stateSince; // Clock time of the last state change
     private final int id;
-    private final DinerPanel dp;
+    private volatile long meals; // Only written by the philosopher's own thread
+    private final DinerListener dp;
+    private final AcquisitionStrategy strategy;
+    private final Timing timing;
+    private DinerMetrics metrics = DinerMetrics.NONE; // Set before the thread starts
+    private EventJournal journal = EventJournal.NONE; // Likewise
+    private SplittableRandom random = new SplittableRandom(); // Own stream, only used by the own thread
 
-    private static final int CHOPSTICK_ANIMATION_TIME = 1000;
+    // Chopsticks in the order the strategy handed them over
+    private Chopstick first;
+    private Chopstick second;
+    private boolean seated; // Strategy acquire() completed, release() still owed
+
+    public Philosopher(DinerListener dp, Chopstick chopstick1, Chopstick chopstick2, int philosopherId)
+    {
+        this(dp, chopstick1, chopstick2, philosopherId, AcquisitionStrategy.RESOURCE_HIERARCHY, Timing.DEFAULT);
+    }
 
-    public Philosopher(DinerPanel dp, Chopstick chopstick1, Chopstick chopstick2, int philosopherId)
+    public Philosopher(DinerListener dp, Chopstick chopstick1, Chopstick chopstick2, int philosopherId,
+                       AcquisitionStrategy strategy, Timing timing)
     {
         this.dp = dp;
         this.chopstick1 = chopstick1;
         this.chopstick2 = chopstick2;
+        this.strategy = strategy;
+        this.timing = timing;
         id = philosopherId;
         state = 0; // Created
     }
@@ -24,35 +54,43 @@ public class Philosopher implements Runnable
     @Override
     public void run()
     {
+        timing.getClock().enter(id);
         while(true)
         {
             try
             {
-                Thread.sleep(50);
-                dp.logMonitor("Philosopher " + id + " just joined");
+                applyRewiring();
+                timing.pause(timing.getJoinDelay());
+                long now = timing.getClock().nanoTime();
+                journal.record(now, id, EventJournal.JOINED, -1);
+                dp.logEvent(now, id, EventLog.JOINED, -1);
 
                 think();
 
-                while(!chopstick1.tryPickUp(id)) Thread.sleep((int) (Math.random() * 50));
-                pickUpChopstick1();
-
-                while(!chopstick2.tryPickUp(id)) Thread.sleep((int) (Math.random() * 50));
-                pickUpChopstick2();
+                // Blocks until both chopsticks are ours
+                strategy.acquire(this);
+                seated = true;
 
                 eat();
 
-                putDownChopstick2();
-                chopstick2.putDown();
+                putDown(second, EventLog.PUT_SECOND);
+                putDown(first, EventLog.PUT_FIRST);
+                first = null;
+                second = null;
 
-                putDownChopstick1();
-                chopstick1.putDown();
+                seated = false;
+                strategy.release(this);
             }
             catch (InterruptedException e)
             {
                 // If interrupted, assume that it's the exit signal
-                dp.logMonitor("Philosopher " + id + " just left.");
+                long now = timing.getClock().nanoTime();
+                journal.record(now, id, EventJournal.LEFT, -1);
+                dp.logEvent(now, id, EventLog.LEFT, -1);
                 if (chopstick1.getOwner() == id) chopstick1.putDown();
                 if (chopstick2.getOwner() == id) chopstick2.putDown();
+                if (seated) strategy.release(this);
+                timing.getClock().leave();
                 return;
             }
         }
@@ -60,54 +98,138 @@ public class Philosopher implements Runnable
 
     private void think() throws InterruptedException
     {
-        state = 0; // Thinking
+        setState(0); // Thinking
         updatePhilosopherLabel();
-        dp.logMonitor("Philosopher " + id + " started thinking");
+        dp.logEvent(stateSince, id, EventLog.THINKING, -1);
         dp.updateStatusPanel(this);
-        Thread.sleep(3000 + (int)(Math.random() * 2000));
+        strategy.think(this, timing.thinkTime(random.nextDouble()));
 
         // After thinking, get hungry
-        state = 1;
-        dp.logMonitor("Philosopher " + id + " is hungry");
+        setState(1);
+        dp.logEvent(stateSince, id, EventLog.HUNGRY, -1);
         dp.updateStatusPanel(this);
         updatePhilosopherLabel();
     }
 
     private void eat() throws InterruptedException
     {
-        state = 2; // Eating
+        setState(2); // Eating
+        meals++;
         updatePhilosopherLabel();
-        dp.logMonitor("Philosopher " + id + " started eating");
+        dp.logEvent(stateSince, id, EventLog.EATING, -1);
         dp.updateStatusPanel(this);
-        Thread.sleep(3000 + (int)(Math.random() * 2000));
+        timing.pause(timing.eatTime(random.nextDouble()));
+    }
+
+    // Any thread. Replaces chopstick from (as it will be once earlier
+    // rewiring is applied) with to, without disturbing a meal in progress.
+    public void rewire(Chopstick from, Chopstick to)
+    {
+        Chopstick next1 = rewired.get(0);
+        if ((next1 != null ? next1 : chopstick1) == from)
+        {
+            rewired.set(0, to);
+            return;
+        }
+        Chopstick next2 = rewired.get(1);
+        if ((next2 != null ? next2 : chopstick2) == from) rewired.set(1, to);
+    }
+
+    private void applyRewiring()
+    {
+        // Publish the chopstick before clearing, so rewire() never sees neither
+        Chopstick c = rewired.get(0);
+        if (c != null)
+        {
+            chopstick1 = c;
+            rewired.compareAndSet(0, c, null);
+        }
+        c = rewired.get(1);
+        if (c != null)
+        {
+            chopstick2 = c;
+            rewired.compareAndSet(1, c, null);
+        }
+    }
+
+    private void setState(int newState)
+    {
+        long now = timing.getClock().nanoTime();
+        metrics.stateChanged(id, state, newState, now);
+        journal.record(now, id, EventJournal.STATE + newState, -1);
+        stateSince = now;
+        state = newState;
+    }
+
+    // Blocking pick-up for strategies; having to wait counts as a retry.
+    // On a virtual clock, waits on the clock instead of in the chopstick's line.
+    void take(Chopstick c) throws InterruptedException
+    {
+        if (c.tryPickUp(id)) return;
+        retried();
+        if (!timing.getClock().isVirtual())
+        {
+            c.pickUp(id);
+            return;
+        }
+        while (!c.tryPickUp(id)) timing.getClock().sleep(RETRY_MILLIS);
     }
 
-    private void pickUpChopstick1() throws InterruptedException
+    // Random pause of up to maxNanos between retries. On a virtual clock,
+    // whole milliseconds on the clock.
+    void backOff(long maxNanos) throws InterruptedException
     {
-        animateMoveChopstick(chopstick1, 0, 1);
-        dp.logMonitor("Philosopher " + id + " got (first) chopstick " + chopstick1.getId());
-        Thread.sleep(CHOPSTICK_ANIMATION_TIME);
+        long nanos = random.nextLong(maxNanos) + 1;
+        if (timing.getClock().isVirtual())
+        {
+            timing.getClock().sleep(Math.max(1, nanos / 1_000_000));
+            return;
+        }
+        LockSupport.parkNanos(nanos);
+        if (Thread.interrupted()) throw new InterruptedException();
     }
 
-    private void pickUpChopstick2() throws InterruptedException
+    // Called by the strategy each time a chopstick it asked for wasn't free
+    void retried()
     {
-        animateMoveChopstick(chopstick2, 1, 1);
-        dp.logMonitor("Philosopher " + id + " got (second) chopstick " + chopstick2.getId());
-        Thread.sleep(CHOPSTICK_ANIMATION_TIME);
+        metrics.retried(id);
     }
 
-    private void putDownChopstick1() throws InterruptedException
+    // Called by the strategy right after it took chopstick c for us
+    void pickedUp(Chopstick c) throws InterruptedException
     {
-        animateMoveChopstick(chopstick1, 0, 0);
-        dp.logMonitor("Philosopher " + id + " left (first) chopstick " + chopstick1.getId());
-        Thread.sleep(CHOPSTICK_ANIMATION_TIME);
+        int event;
+        if (first == null)
+        {
+            first = c;
+            event = EventLog.GOT_FIRST;
+        }
+        else
+        {
+            second = c;
+            event = EventLog.GOT_SECOND;
+        }
+
+        animateMoveChopstick(c, orientation(c), 1, event);
+        timing.pause(timing.getChopstickTime());
     }
 
-    private void putDownChopstick2() throws InterruptedException
+    private void putDown(Chopstick c, int event) throws InterruptedException
     {
-        animateMoveChopstick(chopstick2, 1, 0);
-        dp.logMonitor("Philosopher " + id + " left (second) chopstick " + chopstick2.getId());
-        Thread.sleep(CHOPSTICK_ANIMATION_TIME);
+        animateMoveChopstick(c, orientation(c), 0, event);
+        timing.pause(timing.getChopstickTime());
+        c.putDown();
+    }
+
+    void pause(long millis) throws InterruptedException
+    {
+        timing.pause(millis);
+    }
+
+    // chopstick1 is drawn on the left, chopstick2 on the right
+    private int orientation(Chopstick c)
+    {
+        return c == chopstick1 ? 0 : 1;
     }
 
     private void updatePhilosopherLabel()
@@ -115,16 +237,38 @@ public class Philosopher implements Runnable
         dp.updatePhilosopherLabel(this);
     }
 
-    private void animateMoveChopstick(Chopstick chopstick, int orientation, int direction)
+    private void animateMoveChopstick(Chopstick chopstick, int orientation, int direction, int event)
     {
+        long now = timing.getClock().nanoTime();
+        journal.record(now, id, (direction == 1 ? EventJournal.PICKED_UP : EventJournal.PUT_DOWN) + orientation,
+                chopstick.getId());
         dp.animateMoveChopstick(this, chopstick, orientation, direction);
+        dp.logEvent(now, id, event, chopstick.getId());
     }
 
     public int getId() { return id; }
     public int getState() { return state; }
+    public long getStateSince() { return stateSince; }
+    public long getMeals() { return meals; }
+    public Timing getTiming() { return timing; }
 
     public Chopstick getChopstick1() { return chopstick1; }
     public Chopstick getChopstick2() { return chopstick2; }
 
-    public void setChopstick1(Chopstick c) { chopstick1 = c; }
-}
\ No newline at end of file
+    public void setMetrics(DinerMetrics metrics) { this.metrics = metrics; }
+    public void setJournal(EventJournal journal) { this.journal = journal; }
+
+    // Derives this philosopher's random stream from the run's seed. Before the thread starts.
+    public void setSeed(long runSeed)
+    {
+        random = new SplittableRandom(mix(mix(runSeed) + id));
+    }
+
+    // MurmurHash3's 64-bit finalizer: neighbouring seeds and ids give unrelated streams
+    static long mix(long z)
+    {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
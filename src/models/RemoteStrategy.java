@@ -0,0 +1,57 @@
+package models;
+
+// Chopsticks owned by a service elsewhere (a ChopstickServer in another
+// process). One request asks for both chopsticks, lower id first as in the
+// resource hierarchy, and the two grants come back in that order; the
+// philosopher mirrors each grant on its local Chopstick so putDown and the
+// exit path work unchanged. release() gives both back in one message.
+public class RemoteStrategy implements AcquisitionStrategy
+{
+    // The client side of the service
+    public interface Service
+    {
+        void acquire(int philosopher, int first, int second);
+
+        // Blocks until the next chopstick asked for is granted
+        void awaitGrant(int philosopher) throws InterruptedException;
+
+        void release(int philosopher, int first, int second);
+    }
+
+    private final Service service;
+
+    public RemoteStrategy(Service service)
+    {
+        this.service = service;
+    }
+
+    @Override
+    public void acquire(Philosopher p) throws InterruptedException
+    {
+        Chopstick a = p.getChopstick1();
+        Chopstick b = p.getChopstick2();
+        Chopstick low = a.getId() < b.getId() ? a : b;
+        Chopstick high = low == a ? b : a;
+
+        service.acquire(p.getId(), low.getId(), high.getId());
+        service.awaitGrant(p.getId());
+        p.take(low); // Free locally: the service only grants what every process put down
+        p.pickedUp(low);
+        service.awaitGrant(p.getId());
+        p.take(high);
+        p.pickedUp(high);
+    }
+
+    @Override
+    public void release(Philosopher p)
+    {
+        service.release(p.getId(), p.getChopstick1().getId(), p.getChopstick2().getId());
+    }
+
+    // Seats belong to the server's table
+    @Override
+    public boolean isResizable() { return false; }
+
+    @Override
+    public String getName() { return "remote"; }
+}
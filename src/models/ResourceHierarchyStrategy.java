@@ -0,0 +1,29 @@
+package models;
+
+// Always take the lower-numbered chopstick first. A global order on the
+// chopsticks means no cycle of waiting philosophers can form. This is what
+// the asymmetric wiring in DinerPanel.fillModels achieves for a fresh
+// table, but it also holds after any rewiring.
+public class ResourceHierarchyStrategy implements AcquisitionStrategy
+{
+    @Override
+    public void acquire(Philosopher p) throws InterruptedException
+    {
+        Chopstick a = p.getChopstick1();
+        Chopstick b = p.getChopstick2();
+        Chopstick low = a.getId() < b.getId() ? a : b;
+        Chopstick high = low == a ? b : a;
+
+        p.take(low);
+        p.pickedUp(low);
+
+        p.take(high);
+        p.pickedUp(high);
+    }
+
+    @Override
+    public String getName() { return "hierarchy"; }
+
+    @Override
+    public boolean waitsOnClock() { return true; }
+}
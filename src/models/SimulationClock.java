@@ -0,0 +1,139 @@
+package models;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// The time philosophers and animations run on: real time times a speed
+// (0.1x to 1000x), which can be paused and, while paused, advanced a step
+// at a time. Every change starts a new epoch (real and simulated time at
+// that moment plus the speed), published in one volatile write, so reading
+// the time never locks. Sleepers park in a wait list and are unparked by
+// every change, so a new speed or a step applies to waits already in
+// progress; no sleep holds a monitor, which would pin a virtual thread's
+// carrier.
+public class SimulationClock
+{
+    public static final double MIN_SPEED = 0.1;
+    public static final double MAX_SPEED = 1000;
+    private static final long PAUSED_POLL_NANOS = 50_000_000; // For waits nobody can wake up
+
+    // Plain real time, can't be changed. What Timing.DEFAULT runs on.
+    public static final SimulationClock REAL = new SimulationClock(false);
+
+    private final boolean adjustable;
+    private volatile Epoch epoch = new Epoch(System.nanoTime(), 0, 1, false);
+    private final Set<Thread> sleepers = ConcurrentHashMap.newKeySet();
+
+    public SimulationClock()
+    {
+        this(true);
+    }
+
+    protected SimulationClock(boolean adjustable)
+    {
+        this.adjustable = adjustable;
+    }
+
+    // Simulated nanoseconds, only meaningful as differences like System.nanoTime
+    public long nanoTime()
+    {
+        return epoch.at(System.nanoTime());
+    }
+
+    // Blocks until millis of simulated time have passed
+    public void sleep(long millis) throws InterruptedException
+    {
+        if (!adjustable)
+        {
+            Thread.sleep(millis);
+            return;
+        }
+        if (Thread.interrupted()) throw new InterruptedException();
+
+        long deadline = nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        Thread self = Thread.currentThread();
+        sleepers.add(self); // Before reading the epoch: a change after this unparks us
+        try
+        {
+            long remaining;
+            while ((remaining = deadline - nanoTime()) > 0)
+            {
+                if (epoch.paused) LockSupport.park(this);
+                else LockSupport.parkNanos(this, toRealNanos(remaining));
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        }
+        finally
+        {
+            sleepers.remove(self);
+        }
+    }
+
+    // Real time a wait of simNanos takes at the current speed. While paused,
+    // a short poll interval for waits that can't be woken by the clock.
+    public long toRealNanos(long simNanos)
+    {
+        Epoch e = epoch;
+        if (e.paused) return PAUSED_POLL_NANOS;
+        return Math.max(1, (long) (simNanos / e.speed));
+    }
+
+    // Whether time only moves when every philosopher waits on the clock
+    // (DeterministicClock). Waits that bypass the clock would never end.
+    public boolean isVirtual() { return false; }
+
+    // The calling thread is philosopher id until leave(); lets a virtual
+    // clock order waits that end at the same time
+    public void enter(int id) {}
+    public void leave() {}
+
+    public double getSpeed() { return epoch.speed; }
+    public boolean isPaused() { return epoch.paused; }
+
+    // Clamped to MIN_SPEED..MAX_SPEED
+    public void setSpeed(double speed)
+    {
+        speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+        change(speed, epoch.paused, 0);
+    }
+
+    public void pause() { change(epoch.speed, true, 0); }
+    public void resume() { change(epoch.speed, false, 0); }
+
+    // Pauses the clock if it runs, then moves it forward by millis
+    public void step(long millis)
+    {
+        change(epoch.speed, true, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private synchronized void change(double speed, boolean paused, long advanceNanos)
+    {
+        if (!adjustable) throw new IllegalStateException("The real-time clock can't be changed");
+        long real = System.nanoTime();
+        epoch = new Epoch(real, epoch.at(real) + advanceNanos, speed, paused);
+        for (Thread sleeper : sleepers) LockSupport.unpark(sleeper);
+    }
+
+    private static class Epoch
+    {
+        final long realNanos;
+        final long simNanos;
+        final double speed;
+        final boolean paused;
+
+        Epoch(long realNanos, long simNanos, double speed, boolean paused)
+        {
+            this.realNanos = realNanos;
+            this.simNanos = simNanos;
+            this.speed = speed;
+            this.paused = paused;
+        }
+
+        long at(long real)
+        {
+            return paused ? simNanos : simNanos + (long) ((real - realNanos) * speed);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package models;
+
+import journal.EventJournal;
+import metrics.DinerMetrics;
+
+import java.util.Arrays;
+
+// A ring of chopsticks and philosophers outside of any panel, wired the same
+// way as DinerPanel.fillModels. Seats can be added and removed one at a time
+// at the seam between the last seat and seat 0, like DinerPanel.resize; the
+// caller starts and stops the philosopher threads. The arrays are replaced,
+// never changed, so readers always see a consistent ring.
+public class Table
+{
+    private volatile Chopstick[] chopsticks;
+    private volatile Philosopher[] philosophers;
+    private final AcquisitionStrategy strategy;
+    private final DinerListener listener;
+    private final Timing timing;
+
+    // Applied to seats added later too
+    private DinerMetrics metrics = DinerMetrics.NONE;
+    private EventJournal journal = EventJournal.NONE;
+    private Long seed;
+    private long retiredMeals; // Eaten by philosophers whose seats were removed
+
+    public Table(int n, DinerListener listener)
+    {
+        this(n, listener, AcquisitionStrategy.RESOURCE_HIERARCHY, Timing.DEFAULT);
+    }
+
+    public Table(int n, DinerListener listener, AcquisitionStrategy strategy, Timing timing)
+    {
+        if (n < 2) throw new IllegalArgumentException("A table needs at least 2 seats");
+        if (timing.getClock().isVirtual() && !strategy.waitsOnClock())
+            throw new IllegalArgumentException("The " + strategy.getName() + " strategy can't run on a deterministic clock");
+
+        this.strategy = strategy;
+        this.listener = listener;
+        this.timing = timing;
+        Chopstick[] chopsticks = new Chopstick[n];
+        Philosopher[] philosophers = new Philosopher[n];
+
+        for (int i = 0; i < n; ++i)
+            chopsticks[i] = new Chopstick(i);
+
+        for (int i = 0; i < n-1; ++i)
+            philosophers[i] = new Philosopher(listener, chopsticks[i], chopsticks[i + 1], i, strategy, timing);
+        philosophers[n-1] = new Philosopher(listener, chopsticks[0], chopsticks[n-1], n-1, strategy, timing);
+
+        strategy.seat(philosophers);
+        this.chopsticks = chopsticks;
+        this.philosophers = philosophers;
+    }
+
+    // Call before the philosopher threads start
+    public synchronized void setMetrics(DinerMetrics metrics)
+    {
+        this.metrics = metrics;
+        metrics.setPhilosophers(philosophers.length);
+        for (Philosopher p : philosophers) p.setMetrics(metrics);
+    }
+
+    // Every philosopher draws from its own stream of seed. Call before the
+    // philosopher threads start.
+    public synchronized void setSeed(long seed)
+    {
+        this.seed = seed;
+        for (Philosopher p : philosophers) p.setSeed(seed);
+    }
+
+    public synchronized void setJournal(EventJournal journal)
+    {
+        this.journal = journal;
+        for (Philosopher p : philosophers) p.setJournal(journal);
+    }
+
+    // Whether addSeat and removeSeat can be used
+    public boolean isResizable()
+    {
+        return strategy.isResizable() && !timing.getClock().isVirtual();
+    }
+
+    // A new last seat, between the old last seat and seat 0. Returns its
+    // philosopher for the caller to start.
+    public synchronized Philosopher addSeat()
+    {
+        if (!isResizable()) throw new IllegalStateException("This table can't change size");
+
+        int old = philosophers.length;
+        Chopstick[] c = Arrays.copyOf(chopsticks, old + 1);
+        Philosopher[] p = Arrays.copyOf(philosophers, old + 1);
+        c[old] = new Chopstick(old);
+        p[old] = new Philosopher(listener, c[0], c[old], old, strategy, timing);
+        p[old].setMetrics(metrics);
+        p[old].setJournal(journal);
+        if (seed != null) p[old].setSeed(seed);
+
+        // The old last seat now borders the new seat instead of seat 0
+        p[old-1].rewire(c[0], c[old]);
+
+        strategy.resize(old + 1);
+        metrics.setPhilosophers(old + 1);
+        chopsticks = c;
+        philosophers = p;
+        return p[old];
+    }
+
+    // Takes away the last seat and returns its philosopher, whose thread the
+    // caller interrupts: on its way out it puts down what it holds.
+    public synchronized Philosopher removeSeat()
+    {
+        if (!isResizable()) throw new IllegalStateException("This table can't change size");
+        int target = philosophers.length - 1;
+        if (target < 2) throw new IllegalStateException("A table needs at least 2 seats");
+
+        // The new last seat borders seat 0 again
+        philosophers[target-1].rewire(chopsticks[target], chopsticks[0]);
+
+        Philosopher removed = philosophers[target];
+        retiredMeals += removed.getMeals();
+        chopsticks = Arrays.copyOf(chopsticks, target);
+        philosophers = Arrays.copyOf(philosophers, target);
+        strategy.resize(target);
+        metrics.setPhilosophers(target);
+        return removed;
+    }
+
+    public long getTotalMeals()
+    {
+        long total;
+        Philosopher[] ps;
+        synchronized (this)
+        {
+            total = retiredMeals;
+            ps = philosophers;
+        }
+        for (Philosopher p : ps) total += p.getMeals();
+        return total;
+    }
+
+    // Jain's index over meals per philosopher: 1.0 when everyone ate equally
+    public double getFairness()
+    {
+        Philosopher[] ps = philosophers;
+        double sum = 0, squares = 0;
+        for (Philosopher p : ps)
+        {
+            sum += p.getMeals();
+            squares += (double) p.getMeals() * p.getMeals();
+        }
+        return squares == 0 ? 1.0 : (sum * sum) / (ps.length * squares);
+    }
+
+    public int size() { return philosophers.length; }
+    public Chopstick[] getChopsticks() { return chopsticks; }
+    public Philosopher[] getPhilosophers() { return philosophers; }
+    public AcquisitionStrategy getStrategy() { return strategy; }
+}
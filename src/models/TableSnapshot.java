@@ -0,0 +1,184 @@
+package models;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// What a table looks like, for anyone drawing it: the state of each seat
+// and where each chopstick is (-1 on the table, else holder seat*2 +
+// orientation), as primitives. Philosopher threads only store into the
+// live arrays; a publisher thread copies them into one of two frames every
+// period and flips, stamping the frame with a version. Readers copy the
+// newest frame at their own pace and are never waited for: a copy that
+// overlaps the publisher reusing that frame is noticed (seqlock stamp) and
+// simply retried on the reader's next frame.
+public class TableSnapshot
+{
+    // Written by any thread
+    private volatile AtomicIntegerArray states;
+    private volatile AtomicIntegerArray holders;
+    private final AtomicBoolean changed = new AtomicBoolean(true);
+    private volatile int n;
+
+    // Written by the publisher only
+    private final Frame[] frames = { new Frame(), new Frame() };
+    private volatile int published;
+    private long version;
+    private Thread publisher;
+
+    public TableSnapshot(int n)
+    {
+        grow(Math.max(16, n));
+        this.n = n;
+    }
+
+    // Any thread. The flag is stored every time: checking it first could
+    // read it before the publisher clears it, and the change would wait for
+    // the seat's next one.
+    public void seatChanged(int seat, int state)
+    {
+        AtomicIntegerArray s = states;
+        if (seat >= s.length()) return;
+        s.lazySet(seat, state);
+        changed.set(true);
+    }
+
+    // Any thread. seat -1 puts the chopstick back on the table.
+    public void chopstickMoved(int chopstick, int seat, int orientation)
+    {
+        AtomicIntegerArray h = holders;
+        if (chopstick >= h.length()) return;
+        h.lazySet(chopstick, seat < 0 ? -1 : seat * 2 + orientation);
+        changed.set(true);
+    }
+
+    // The table now has n seats; new ones start thinking with their
+    // chopsticks on the table. A write racing with the copy of a grow can
+    // be lost, the seat's next change puts it right.
+    public void resize(int n)
+    {
+        if (n > states.length()) grow(Math.max(n, states.length() * 2));
+        for (int i = this.n; i < n; ++i)
+        {
+            states.set(i, 0);
+            holders.set(i, -1);
+        }
+        this.n = n;
+        changed.set(true);
+    }
+
+    public void start(long periodMs)
+    {
+        publisher = new Thread(() ->
+        {
+            try
+            {
+                while (true)
+                {
+                    publish();
+                    Thread.sleep(periodMs);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // Stopped
+            }
+        }, "Snapshot-Publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    public void stop()
+    {
+        if (publisher != null) publisher.interrupt();
+    }
+
+    // Publisher thread. Copies the live arrays into the frame readers aren't
+    // on, if anything changed since the last publish.
+    public boolean publish()
+    {
+        // Cleared before copying, atomically: a change it doesn't see is
+        // still flagged for the next publish
+        if (!changed.getAndSet(false)) return false;
+
+        Frame back = frames[published ^ 1];
+        int size = n;
+        back.stamp++; // Odd: being written
+        VarHandle.storeStoreFence();
+        back.ensureCapacity(size);
+        AtomicIntegerArray s = states, h = holders;
+        for (int i = 0; i < size; ++i)
+        {
+            back.states[i] = (byte) s.get(i);
+            back.holders[i] = h.get(i);
+        }
+        back.n = size;
+        back.version = ++version;
+        back.stamp++; // Even: complete
+        published ^= 1;
+        return true;
+    }
+
+    // Copies the newest frame into into, unless into has that version
+    // already. False if there was nothing new, or the publisher lapped this
+    // copy; into's contents only mean something after a true.
+    public boolean read(Frame into)
+    {
+        Frame front = frames[published];
+        long stamp = front.stamp;
+        if ((stamp & 1) != 0 || front.version == into.version) return false;
+
+        int size = front.n;
+        long version = front.version;
+        byte[] s = front.states;
+        int[] h = front.holders;
+        if (size > s.length || size > h.length) return false; // Arrays swapped by a grow under us
+        into.ensureCapacity(size);
+        System.arraycopy(s, 0, into.states, 0, size);
+        System.arraycopy(h, 0, into.holders, 0, size);
+        VarHandle.acquireFence();
+        if (front.stamp != stamp)
+        {
+            into.version = 0;
+            return false;
+        }
+
+        into.n = size;
+        into.version = version;
+        return true;
+    }
+
+    private void grow(int capacity)
+    {
+        AtomicIntegerArray s = new AtomicIntegerArray(capacity);
+        AtomicIntegerArray h = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; ++i) h.set(i, -1);
+        AtomicIntegerArray oldStates = states, oldHolders = holders;
+        for (int i = 0; oldStates != null && i < oldStates.length(); ++i)
+        {
+            s.set(i, oldStates.get(i));
+            h.set(i, oldHolders.get(i));
+        }
+        states = s;
+        holders = h;
+    }
+
+    // One published table, or a reader's copy of one
+    public static class Frame
+    {
+        public int n;
+        public byte[] states = new byte[0];
+        public int[] holders = new int[0];
+        public long version;
+        private volatile long stamp;
+
+        private void ensureCapacity(int size)
+        {
+            if (size <= states.length) return;
+            int capacity = Math.max(size, states.length * 2);
+            states = Arrays.copyOf(states, capacity);
+            holders = Arrays.copyOf(holders, capacity);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package models;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hungry philosophers draw a ticket and line up at both of their chopsticks.
+// A philosopher eats once it is first in line at both and both are free,
+// then takes them together. Tickets give one global order, so the smallest
+// outstanding ticket can always proceed: no deadlock, and nobody can be
+// overtaken forever by a neighbour.
+public class TicketStrategy implements AcquisitionStrategy
+{
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Tickets are drawn under the lock, so arrival order is ticket order
+    private final Map<Chopstick, ArrayDeque<Ticket>> lines = new IdentityHashMap<>();
+
+    @Override
+    public void acquire(Philosopher p) throws InterruptedException
+    {
+        Chopstick a = p.getChopstick1();
+        Chopstick b = p.getChopstick2();
+
+        lock.lock();
+        try
+        {
+            Ticket t = new Ticket(lock.newCondition());
+            line(a).addLast(t);
+            line(b).addLast(t);
+
+            try
+            {
+                while (!canEat(t, a, b))
+                {
+                    p.retried();
+                    t.turn.await();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                leave(t, a, b);
+                throw e;
+            }
+
+            a.tryPickUp(p.getId());
+            b.tryPickUp(p.getId());
+            leave(t, a, b);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        try
+        {
+            p.pickedUp(a);
+            p.pickedUp(b);
+        }
+        catch (InterruptedException e)
+        {
+            // Not seated yet, so the philosopher won't release: hand both
+            // chopsticks back and wake whoever lines up behind us
+            a.putDown();
+            b.putDown();
+            release(p);
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(Philosopher p)
+    {
+        lock.lock();
+        try
+        {
+            wakeHead(p.getChopstick1());
+            wakeHead(p.getChopstick2());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String getName() { return "ticket"; }
+
+    private boolean canEat(Ticket t, Chopstick a, Chopstick b)
+    {
+        return line(a).peekFirst() == t && line(b).peekFirst() == t
+                && a.getOwner() == -1 && b.getOwner() == -1;
+    }
+
+    // Drop out of both lines and let whoever is now first check again
+    private void leave(Ticket t, Chopstick a, Chopstick b)
+    {
+        line(a).remove(t);
+        line(b).remove(t);
+        wakeHead(a);
+        wakeHead(b);
+    }
+
+    private void wakeHead(Chopstick c)
+    {
+        Ticket head = line(c).peekFirst();
+        if (head != null) head.turn.signal();
+    }
+
+    private ArrayDeque<Ticket> line(Chopstick c)
+    {
+        return lines.computeIfAbsent(c, k -> new ArrayDeque<>());
+    }
+
+    private static class Ticket
+    {
+        final Condition turn;
+
+        Ticket(Condition turn) { this.turn = turn; }
+    }
+}
@@ -0,0 +1,86 @@
+package models;
+
+// How long a philosopher thinks, eats and moves a chopstick, in ms of the
+// clock's time. Think and eat last base + random(0..jitter), or another
+// distribution with the same mean.
+public class Timing
+{
+    public static final Timing DEFAULT = new Timing(50, 3000, 2000, 3000, 2000, 1000);
+
+    private final int joinDelay;
+    private final int thinkTime;
+    private final int thinkJitter;
+    private final int eatTime;
+    private final int eatJitter;
+    private final int chopstickTime;
+    private final Distribution distribution;
+    private final SimulationClock clock;
+
+    public Timing(int joinDelay, int thinkTime, int thinkJitter, int eatTime, int eatJitter, int chopstickTime)
+    {
+        this(joinDelay, thinkTime, thinkJitter, eatTime, eatJitter, chopstickTime, Distribution.UNIFORM, SimulationClock.REAL);
+    }
+
+    private Timing(int joinDelay, int thinkTime, int thinkJitter, int eatTime, int eatJitter, int chopstickTime,
+                   Distribution distribution, SimulationClock clock)
+    {
+        this.joinDelay = joinDelay;
+        this.thinkTime = thinkTime;
+        this.thinkJitter = thinkJitter;
+        this.eatTime = eatTime;
+        this.eatJitter = eatJitter;
+        this.chopstickTime = chopstickTime;
+        this.distribution = distribution;
+        this.clock = clock;
+    }
+
+    // Same proportions, everything multiplied by factor (0.01 = 100x faster)
+    public Timing scaled(double factor)
+    {
+        return new Timing(scale(joinDelay, factor), scale(thinkTime, factor), scale(thinkJitter, factor),
+                scale(eatTime, factor), scale(eatJitter, factor), scale(chopstickTime, factor), distribution, clock);
+    }
+
+    // Eating takes factor times as long, thinking is unchanged
+    public Timing withEatScaled(double factor)
+    {
+        return new Timing(joinDelay, thinkTime, thinkJitter, scale(eatTime, factor), scale(eatJitter, factor),
+                chopstickTime, distribution, clock);
+    }
+
+    public Timing withDistribution(Distribution distribution)
+    {
+        return new Timing(joinDelay, thinkTime, thinkJitter, eatTime, eatJitter, chopstickTime, distribution, clock);
+    }
+
+    // Same durations, waited on clock
+    public Timing withClock(SimulationClock clock)
+    {
+        return new Timing(joinDelay, thinkTime, thinkJitter, eatTime, eatJitter, chopstickTime, distribution, clock);
+    }
+
+    // One think or eat duration, from a uniform sample u in [0, 1)
+    public int thinkTime(double u) { return distribution.sample(thinkTime, thinkJitter, u); }
+    public int eatTime(double u) { return distribution.sample(eatTime, eatJitter, u); }
+
+    // Every wait of the philosopher loop goes through here; benchmarks
+    // override it to burn CPU instead of sleeping
+    public void pause(long millis) throws InterruptedException
+    {
+        clock.sleep(millis);
+    }
+
+    private static int scale(int value, double factor)
+    {
+        return (int) Math.round(value * factor);
+    }
+
+    public int getJoinDelay() { return joinDelay; }
+    public int getThinkTime() { return thinkTime; }
+    public int getThinkJitter() { return thinkJitter; }
+    public int getEatTime() { return eatTime; }
+    public int getEatJitter() { return eatJitter; }
+    public int getChopstickTime() { return chopstickTime; }
+    public Distribution getDistribution() { return distribution; }
+    public SimulationClock getClock() { return clock; }
+}
@@ -0,0 +1,63 @@
+package models;
+
+import java.util.concurrent.Semaphore;
+
+// Arbitrator: a waiter lets at most n-1 philosophers reach for chopsticks
+// at once, so at least one of them can always get both
+public class WaiterStrategy implements AcquisitionStrategy
+{
+    private final Seats seats;
+    private int n;
+
+    public WaiterStrategy(int n)
+    {
+        this.n = n;
+        seats = new Seats(n - 1);
+    }
+
+    @Override
+    public void acquire(Philosopher p) throws InterruptedException
+    {
+        seats.acquire();
+        try
+        {
+            p.take(p.getChopstick1());
+            p.pickedUp(p.getChopstick1());
+
+            p.take(p.getChopstick2());
+            p.pickedUp(p.getChopstick2());
+        }
+        catch (InterruptedException e)
+        {
+            seats.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(Philosopher p)
+    {
+        seats.release();
+    }
+
+    @Override
+    public synchronized void resize(int n)
+    {
+        int delta = n - this.n;
+        this.n = n;
+        if (delta > 0) seats.release(delta);
+        else if (delta < 0) seats.reducePermits(-delta);
+    }
+
+    @Override
+    public String getName() { return "waiter"; }
+
+    @SuppressWarnings("serial")
+    private static class Seats extends Semaphore
+    {
+        Seats(int permits) { super(permits, true); }
+
+        @Override
+        protected void reducePermits(int reduction) { super.reducePermits(reduction); }
+    }
+}
@@ -0,0 +1,370 @@
+package net;
+
+import models.Chopstick;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+// Owns the chopsticks of one table and hands them out to philosophers in
+// other processes (RemoteTable). One thread, one selector, no blocking:
+// each round reads whatever every connection sent, handles all complete
+// frames, and then writes every connection's replies in one go, so grants
+// for many philosophers of a client share a write.
+//
+// Ownership is Chopstick's: tryPickUp / putDown / getOwner with the
+// philosopher's id. A busy chopstick queues the request (first come, first
+// served) and the release hands it straight to the head of the queue. An
+// ACQUIRE for two chopsticks waits for the first before queueing for the
+// second, which is the resource hierarchy when clients send the lower id
+// first. A closed connection gives back everything its philosophers held
+// or waited for.
+//
+// Observers get every change, so one that reads slowly would make its
+// buffer grow without end. Past a cap its backlog is dropped instead and it
+// is sent the whole table again (SEATS, states, holders), like a
+// TelemetryServer keyframe.
+public class ChopstickServer implements Runnable
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_OBSERVER_BUFFER = 4 * 1024 * 1024; // Raised to fit two full resyncs of a big table
+
+    private final int n;
+    private final Chopstick[] chopsticks;
+    private final ArrayDeque<Request>[] waiting;
+    private final int[] states;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Connection> connections = new ArrayList<>();
+    private final List<Connection> observers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    // Statistics, read by other threads once the server stopped or as estimates
+    private volatile long framesIn, reads, writes, grants;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ChopstickServer(int n, InetSocketAddress address) throws IOException
+    {
+        this.n = n;
+        chopsticks = new Chopstick[n];
+        waiting = new ArrayDeque[n];
+        states = new int[n];
+        for (int i = 0; i < n; ++i)
+        {
+            chopsticks[i] = new Chopstick(i);
+            waiting[i] = new ArrayDeque<>();
+        }
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024); // Hundreds of clients connect at once
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() { return server.socket().getLocalPort(); }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            while (running)
+            {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else
+                    {
+                        Connection c = (Connection) key.attachment();
+                        if (key.isReadable()) read(c);
+                        if (key.isValid() && key.isWritable()) flush(c);
+                    }
+                }
+
+                for (Connection o : observers) if (o.needsResync) resync(o);
+
+                // Everything this round produced, one write per connection
+                for (int i = connections.size() - 1; i >= 0; --i)
+                {
+                    Connection c = connections.get(i);
+                    if (c.out.position() > 0 && (c.key.interestOps() & SelectionKey.OP_WRITE) == 0) flush(c);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            System.out.println("Chopstick server stopped: " + e.getMessage());
+        }
+        finally
+        {
+            for (Connection c : new ArrayList<>(connections)) close(c);
+            try
+            {
+                server.close();
+                selector.close();
+            }
+            catch (IOException e)
+            {
+                System.out.println("Could not close the chopstick server: " + e.getMessage());
+            }
+        }
+    }
+
+    // Any thread
+    public void stop()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    public long getFramesIn() { return framesIn; }
+    public long getGrants() { return grants; }
+    public double getFramesPerRead() { return reads == 0 ? 0 : (double) framesIn / reads; }
+    public double getFramesPerWrite() { return writes == 0 ? 0 : (double) grants / writes; }
+
+    private void accept() throws IOException
+    {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection c = new Connection(channel);
+            c.key = channel.register(selector, SelectionKey.OP_READ, c);
+            connections.add(c);
+        }
+    }
+
+    private void read(Connection c)
+    {
+        int bytes;
+        try
+        {
+            bytes = c.channel.read(c.in);
+        }
+        catch (IOException e)
+        {
+            bytes = -1;
+        }
+        if (bytes < 0)
+        {
+            close(c);
+            return;
+        }
+
+        reads++;
+        c.in.flip();
+        while (c.in.remaining() >= Protocol.FRAME && c.key.isValid())
+        {
+            framesIn++;
+            handle(c, c.in.getInt(), c.in.getInt(), c.in.getInt(), c.in.getInt());
+        }
+        c.in.compact();
+    }
+
+    private void handle(Connection c, int op, int p, int a, int b)
+    {
+        if (op != Protocol.OBSERVE && op != Protocol.PING && (p < 0 || p >= n))
+        {
+            System.out.println("Chopstick server: philosopher " + p + " out of range, closing its connection");
+            close(c);
+            return;
+        }
+
+        switch (op)
+        {
+            case Protocol.ACQUIRE:
+                c.philosophers.set(p);
+                if (valid(a) && b >= -1 && b < n) request(c, p, a, b);
+                break;
+            case Protocol.RELEASE:
+                if (valid(a)) release(p, a);
+                if (valid(b)) release(p, b);
+                break;
+            case Protocol.STATE:
+                c.philosophers.set(p);
+                states[p] = a;
+                for (Connection o : observers) o.send(Protocol.STATE, p, a, 0);
+                break;
+            case Protocol.OBSERVE:
+                observe(c);
+                break;
+            case Protocol.PING:
+                c.send(Protocol.PONG, 0, a, b);
+                break;
+            default:
+                System.out.println("Chopstick server: unknown op " + op + ", closing the connection");
+                close(c);
+        }
+    }
+
+    private boolean valid(int chopstick)
+    {
+        return chopstick >= 0 && chopstick < n;
+    }
+
+    private void request(Connection c, int p, int chopstick, int next)
+    {
+        if (waiting[chopstick].isEmpty() && chopsticks[chopstick].tryPickUp(p)) grant(c, p, chopstick, next);
+        else waiting[chopstick].add(new Request(c, p, next));
+    }
+
+    private void grant(Connection c, int p, int chopstick, int next)
+    {
+        grants++;
+        c.send(Protocol.GRANTED, p, chopstick, 0);
+        for (Connection o : observers) o.send(Protocol.PICKED, p, chopstick, Protocol.orientation(p, chopstick, n));
+        if (next >= 0) request(c, p, next, -1);
+    }
+
+    private void release(int p, int chopstick)
+    {
+        if (chopsticks[chopstick].getOwner() != p) return;
+        chopsticks[chopstick].putDown();
+        for (Connection o : observers) o.send(Protocol.PUT, p, chopstick, Protocol.orientation(p, chopstick, n));
+
+        Request r = waiting[chopstick].poll();
+        if (r != null && chopsticks[chopstick].tryPickUp(r.philosopher)) grant(r.connection, r.philosopher, chopstick, r.next);
+    }
+
+    // Table size, states and holders, then every change from here on
+    private void observe(Connection c)
+    {
+        if (!c.observer)
+        {
+            c.observer = true;
+            c.limit = Math.max(MAX_OBSERVER_BUFFER, 2 * (2 * n + 1) * Protocol.FRAME);
+            observers.add(c);
+        }
+        c.send(Protocol.SEATS, n, 0, 0);
+        for (int p = 0; p < n; ++p) c.send(Protocol.STATE, p, states[p], 0);
+        for (int i = 0; i < n; ++i)
+        {
+            int owner = chopsticks[i].getOwner();
+            if (owner >= 0) c.send(Protocol.PICKED, owner, i, Protocol.orientation(owner, i, n));
+        }
+    }
+
+    // Drops what an observer that fell behind hasn't been sent yet and sends
+    // it the table as it is now
+    private void resync(Connection c)
+    {
+        // The first bytes may finish a frame the socket took part of
+        int partial = (int) (c.written % Protocol.FRAME);
+        c.out.position(partial == 0 ? 0 : Protocol.FRAME - partial);
+        c.needsResync = false;
+        observe(c);
+    }
+
+    private void flush(Connection c)
+    {
+        c.out.flip();
+        try
+        {
+            c.written += c.channel.write(c.out);
+            writes++;
+        }
+        catch (IOException e)
+        {
+            c.out.clear();
+            close(c);
+            return;
+        }
+        c.out.compact();
+
+        // Wait for the socket to drain if the write was short
+        if (c.key.isValid())
+            c.key.interestOps(c.out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void close(Connection c)
+    {
+        if (!connections.remove(c)) return;
+        observers.remove(c);
+        c.key.cancel();
+        try
+        {
+            c.channel.close();
+        }
+        catch (IOException e)
+        {
+            // Gone either way
+        }
+
+        // Forget its requests, then give back what its philosophers hold
+        for (ArrayDeque<Request> queue : waiting) queue.removeIf(r -> r.connection == c);
+        for (int i = 0; i < n; ++i)
+        {
+            int owner = chopsticks[i].getOwner();
+            if (owner >= 0 && c.philosophers.get(owner)) release(owner, i);
+        }
+    }
+
+    private static class Request
+    {
+        final Connection connection;
+        final int philosopher;
+        final int next; // Chopstick to queue for once this one is granted, -1 if none
+
+        Request(Connection connection, int philosopher, int next)
+        {
+            this.connection = connection;
+            this.philosopher = philosopher;
+            this.next = next;
+        }
+    }
+
+    private static class Connection
+    {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final BitSet philosophers = new BitSet(); // Ids this connection speaks for
+        SelectionKey key;
+        boolean observer;
+        int limit = Integer.MAX_VALUE; // Most out may grow to; philosophers only get replies to their own requests
+        boolean needsResync;           // Frames were dropped since the last full state
+        long written;
+
+        Connection(SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        // Queues a frame, growing the buffer up to limit if the peer reads
+        // slowly; past that the frame is dropped and a resync is due
+        void send(int op, int p, int a, int b)
+        {
+            if (needsResync) return;
+            if (out.remaining() < Protocol.FRAME)
+            {
+                if (out.capacity() >= limit)
+                {
+                    needsResync = true;
+                    return;
+                }
+                ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min((long) out.capacity() * 2, limit));
+                out.flip();
+                grown.put(out);
+                out = grown;
+            }
+            Protocol.put(out, op, p, a, b);
+        }
+    }
+}
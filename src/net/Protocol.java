@@ -0,0 +1,53 @@
+package net;
+
+import java.nio.ByteBuffer;
+
+// The chopstick service's wire format: fixed 16-byte frames of four ints
+// (op, philosopher, a, b), big-endian, in both directions. Fixed frames need
+// no length prefix, a read buffer holds a whole number of them after a
+// compact(), and many frames go out in one write.
+//
+// Client to server:
+//   ACQUIRE  p, first, second  take first, then second (-1 for none); one
+//                              GRANTED per chopstick, in that order
+//   RELEASE  p, c1, c2         put chopsticks down (-1 for none)
+//   STATE    p, state          the philosopher's new state (0 thinking,
+//                              1 hungry, 2 eating), passed on to observers
+//   OBSERVE                    turns the connection into an observer
+//   PING     0, hi, lo          a timestamp, answered with PONG
+// Server to client:
+//   GRANTED  p, c              p now holds c
+//   PONG     0, hi, lo          the PING's timestamp
+// Server to observer:
+//   SEATS    n                 first frame, table size
+//   STATE    p, state
+//   PICKED   p, c, orientation
+//   PUT      p, c, orientation
+public final class Protocol
+{
+    public static final int FRAME = 16;
+
+    public static final int ACQUIRE = 1;
+    public static final int RELEASE = 2;
+    public static final int STATE = 3;
+    public static final int OBSERVE = 4;
+    public static final int PING = 5;
+    public static final int GRANTED = 10;
+    public static final int PONG = 11;
+    public static final int SEATS = 12;
+    public static final int PICKED = 13;
+    public static final int PUT = 14;
+
+    private Protocol() {}
+
+    public static void put(ByteBuffer buffer, int op, int philosopher, int a, int b)
+    {
+        buffer.putInt(op).putInt(philosopher).putInt(a).putInt(b);
+    }
+
+    // Chopstick c is on p's left (0) or right (1), wired like Table
+    public static int orientation(int p, int c, int n)
+    {
+        return p == n - 1 ? (c == 0 ? 0 : 1) : (c == p ? 0 : 1);
+    }
+}
@@ -0,0 +1,236 @@
+package net;
+
+import metrics.DinerMetrics;
+import metrics.LatencyHistogram;
+import models.Chopstick;
+import models.DinerListener;
+import models.ExecutionMode;
+import models.Philosopher;
+import models.RemoteStrategy;
+import models.Timing;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Semaphore;
+
+// A group of seats (from .. from + count - 1) of a ChopstickServer's table,
+// run as real Philosopher threads in this process. Requests from all of the
+// group's philosophers go into one buffer that a writer thread sends as a
+// whole, so philosophers getting hungry together share a write, and nobody
+// waits for a grant before sending the next request. A reader thread hands
+// grants to the waiting philosophers. State changes go to the server for
+// its observers; a pinger measures the plain round trip alongside.
+public class RemoteTable implements RemoteStrategy.Service
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PING_MILLIS = 100;
+
+    private final int from;
+    private final SocketChannel channel;
+    private final Philosopher[] philosophers;
+    private final Semaphore[] grants;
+    private final DinerMetrics metrics;
+    private final LatencyHistogram roundTrips = new LatencyHistogram();
+    private final ExecutionMode executionMode;
+
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE); // Guarded by this
+    private ByteBuffer sending = ByteBuffer.allocate(BUFFER_SIZE); // Writer thread only
+    private volatile boolean closed;
+
+    public RemoteTable(InetSocketAddress server, int n, int from, int count, Timing timing, ExecutionMode executionMode)
+            throws IOException
+    {
+        if (from < 0 || count < 1 || from + count > n) throw new IllegalArgumentException("Seats out of the table");
+
+        this.from = from;
+        this.executionMode = executionMode;
+        channel = SocketChannel.open(server);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        // Local stand-ins for the server's chopsticks, wired like Table
+        Chopstick[] chopsticks = new Chopstick[n];
+        for (int i = 0; i < n; ++i) chopsticks[i] = new Chopstick(i);
+
+        RemoteStrategy strategy = new RemoteStrategy(this);
+        DinerListener listener = new StateForwarder();
+        metrics = new DinerMetrics(n);
+        philosophers = new Philosopher[count];
+        grants = new Semaphore[count];
+        for (int k = 0; k < count; ++k)
+        {
+            int i = from + k;
+            philosophers[k] = i == n - 1
+                    ? new Philosopher(listener, chopsticks[0], chopsticks[n-1], i, strategy, timing)
+                    : new Philosopher(listener, chopsticks[i], chopsticks[i + 1], i, strategy, timing);
+            philosophers[k].setMetrics(metrics);
+            grants[k] = new Semaphore(0);
+        }
+    }
+
+    // Runs the group for durationMs, then disconnects (the server takes back
+    // whatever is still held) and prints one line of results
+    public void run(long durationMs, PrintStream out) throws InterruptedException
+    {
+        Thread reader = new Thread(this::readLoop, "Remote-Reader");
+        Thread writer = new Thread(this::writeLoop, "Remote-Writer");
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+        reader.start();
+        writer.start();
+
+        Thread[] threads = new Thread[philosophers.length];
+        for (int k = 0; k < threads.length; ++k)
+        {
+            threads[k] = executionMode.newThread(philosophers[k], "Philosopher-" + philosophers[k].getId());
+            threads[k].start();
+        }
+
+        long start = System.nanoTime();
+        long end = start + durationMs * 1_000_000;
+        long now;
+        while ((now = System.nanoTime()) < end)
+        {
+            send(Protocol.PING, 0, (int) (now >>> 32), (int) now);
+            Thread.sleep(Math.min(PING_MILLIS, Math.max(1, (end - now) / 1_000_000)));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long meals = 0;
+        for (Philosopher p : philosophers) meals += p.getMeals();
+
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join();
+        close();
+
+        out.printf("%6d %6d %8d %10.2f %12.1f %12.1f %10.3f %10.3f%n", from, philosophers.length, meals, meals / seconds,
+                metrics.getHungerMeanMillis(), metrics.getHungerP99Millis(),
+                roundTrips.getPercentile(0.50) / 1e6, roundTrips.getPercentile(0.99) / 1e6);
+    }
+
+    public static void printHeader(PrintStream out)
+    {
+        out.printf("%6s %6s %8s %10s %12s %12s %10s %10s%n", "from", "seats", "meals", "meals/s", "hunger ms", "p99 ms",
+                "rtt ms", "rtt p99");
+    }
+
+    @Override
+    public void acquire(int philosopher, int first, int second)
+    {
+        send(Protocol.ACQUIRE, philosopher, first, second);
+    }
+
+    @Override
+    public void awaitGrant(int philosopher) throws InterruptedException
+    {
+        grants[philosopher - from].acquire();
+    }
+
+    @Override
+    public void release(int philosopher, int first, int second)
+    {
+        send(Protocol.RELEASE, philosopher, first, second);
+    }
+
+    private synchronized void send(int op, int p, int a, int b)
+    {
+        if (closed) return;
+        if (pending.remaining() < Protocol.FRAME)
+        {
+            ByteBuffer grown = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        boolean wasEmpty = pending.position() == 0;
+        Protocol.put(pending, op, p, a, b);
+        if (wasEmpty) notifyAll();
+    }
+
+    // Swaps in everything queued since the last write and sends it at once
+    private void writeLoop()
+    {
+        try
+        {
+            while (true)
+            {
+                synchronized (this)
+                {
+                    while (pending.position() == 0 && !closed) wait();
+                    if (closed) return;
+                    ByteBuffer full = pending;
+                    pending = sending;
+                    sending = full;
+                }
+                sending.flip();
+                while (sending.hasRemaining()) channel.write(sending);
+                sending.clear();
+            }
+        }
+        catch (IOException e)
+        {
+            if (!closed) System.out.println("Lost the chopstick server: " + e.getMessage());
+        }
+        catch (InterruptedException e)
+        {
+            // Shutting down
+        }
+    }
+
+    private void readLoop()
+    {
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        try
+        {
+            while (channel.read(in) >= 0)
+            {
+                in.flip();
+                while (in.remaining() >= Protocol.FRAME)
+                {
+                    int op = in.getInt(), p = in.getInt(), a = in.getInt(), b = in.getInt();
+                    if (op == Protocol.GRANTED && p >= from && p - from < grants.length) grants[p - from].release();
+                    else if (op == Protocol.PONG) roundTrips.record(System.nanoTime() - (((long) a << 32) | (b & 0xffffffffL)));
+                }
+                in.compact();
+            }
+        }
+        catch (IOException e)
+        {
+            if (!closed) System.out.println("Lost the chopstick server: " + e.getMessage());
+        }
+    }
+
+    private void close()
+    {
+        synchronized (this)
+        {
+            closed = true;
+            notifyAll();
+        }
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            System.out.println("Could not close the connection: " + e.getMessage());
+        }
+    }
+
+    // Passes each state change on to the server
+    private class StateForwarder implements DinerListener
+    {
+        @Override public void logMonitor(String message) {}
+        @Override public void logEvent(long nanos, int philosopher, int event, int chopstick) {}
+        @Override public void updatePhilosopherLabel(Philosopher p) {}
+        @Override public void animateMoveChopstick(Philosopher p, Chopstick c, int orientation, int direction) {}
+
+        @Override
+        public void updateStatusPanel(Philosopher p)
+        {
+            send(Protocol.STATE, p.getId(), p.getState(), 0);
+        }
+    }
+}
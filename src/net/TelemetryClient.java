@@ -0,0 +1,138 @@
+package net;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+// Headless observer of a TelemetryServer: rebuilds every seat's state and
+// chopstick owner from keyframes and deltas and prints the same totals as
+// MonitorPanel, plus how much the stream costs. A delta that doesn't follow
+// the last frame applied is dropped until the next keyframe.
+public class TelemetryClient
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InetSocketAddress server;
+    private int n;
+    private byte[] states = new byte[0];
+    private int[] owners = new int[0];
+    private int sequence;
+    private boolean synced;
+    private long frames, keyframes, bytes, dropped;
+
+    public TelemetryClient(InetSocketAddress server)
+    {
+        this.server = server;
+    }
+
+    // Prints totals every printMs until the server goes away or durationMs
+    // has passed (0 for no limit)
+    public void run(long printMs, long durationMs, PrintStream out) throws IOException
+    {
+        long start = System.nanoTime();
+        long nextPrint = start + printMs * 1_000_000;
+        try (SocketChannel channel = SocketChannel.open(server))
+        {
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+            int read;
+            while ((read = channel.read(in)) >= 0)
+            {
+                bytes += read;
+                in.flip();
+                while (in.remaining() >= 4 && in.remaining() >= 4 + in.getInt(in.position()))
+                {
+                    int length = in.getInt();
+                    int end = in.position() + length;
+                    apply(in);
+                    in.position(end);
+                }
+                in.compact();
+                if (in.capacity() - in.position() == 0) in = grow(in);
+
+                long now = System.nanoTime();
+                if (now - nextPrint >= 0)
+                {
+                    print(out, (now - start) / 1e9);
+                    nextPrint += printMs * 1_000_000;
+                }
+                if (durationMs > 0 && now - start >= durationMs * 1_000_000) break;
+            }
+        }
+        print(out, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void apply(ByteBuffer in)
+    {
+        byte type = in.get();
+        int seq = in.getInt();
+        in.getLong(); // Sample time, in the server's clock
+        int seats = in.getInt();
+        frames++;
+
+        if (type == TelemetryServer.KEYFRAME)
+        {
+            keyframes++;
+            resize(seats);
+            for (int i = 0; i < n; ++i)
+            {
+                states[i] = in.get();
+                owners[i] = TelemetryServer.getVarint(in) - 1;
+            }
+            synced = true;
+        }
+        else if (synced && seq == sequence + 1 && seats == n)
+        {
+            int count = TelemetryServer.getVarint(in);
+            int seat = 0;
+            for (int k = 0; k < count; ++k)
+            {
+                seat += TelemetryServer.getVarint(in);
+                states[seat] = in.get();
+                owners[seat] = TelemetryServer.getVarint(in) - 1;
+            }
+        }
+        else
+        {
+            dropped++;
+            synced = false;
+            return;
+        }
+        sequence = seq;
+    }
+
+    private void print(PrintStream out, double seconds)
+    {
+        int[] totals = new int[3];
+        int held = 0;
+        for (int i = 0; i < n; ++i)
+        {
+            totals[Math.max(0, Math.min(2, states[i]))]++;
+            if (owners[i] >= 0) held++;
+        }
+        out.printf("%7.1f s  %d seats  Thinking: %d  Hungry: %d  Eating: %d  chopsticks held: %d"
+                        + "  (%d frames, %d keyframes, %d dropped, %.1f KB/s)%n",
+                seconds, n, totals[0], totals[1], totals[2], held, frames, keyframes, dropped,
+                seconds > 0 ? bytes / 1024.0 / seconds : 0);
+    }
+
+    private void resize(int seats)
+    {
+        n = seats;
+        if (seats > states.length)
+        {
+            states = Arrays.copyOf(states, seats);
+            owners = Arrays.copyOf(owners, seats);
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer in)
+    {
+        ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+        in.flip();
+        grown.put(in);
+        return grown;
+    }
+}
@@ -0,0 +1,353 @@
+package net;
+
+import models.Chopstick;
+import models.Philosopher;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+// Streams a table's state to any number of TelemetryClients, from one
+// thread with one selector. Every period it samples each seat's state and
+// chopstick owner into primitive arrays and sends a delta frame with just
+// the seats that changed; every KEYFRAME_INTERVAL frames, and whenever a
+// client joins or falls behind, a keyframe with every seat instead.
+//
+// Backpressure per client: a client whose last frame hasn't fully left its
+// socket buffer gets nothing new. It has missed a delta, so once the socket
+// drains it gets a keyframe; a slow client costs bandwidth only for itself
+// and never buffers more than one frame on the server.
+//
+// Frame: int length (of what follows), byte KEYFRAME or DELTA, int sequence,
+// long sample time (System.nanoTime), int seats, then
+//   keyframe: per seat, state byte and owner of chopstick seat (varint owner+1)
+//   delta:    varint count, then per changed seat the gap to the previous
+//             changed seat (varint), state byte and owner (varint owner+1)
+public class TelemetryServer implements Runnable
+{
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+    static final int HEADER = 4 + 1 + 4 + 8 + 4;
+    private static final int KEYFRAME_INTERVAL = 50;
+    private static final int MAX_VARINT = 5;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final long periodMs;
+    private final List<Client> clients = new ArrayList<>();
+    private volatile Table table = new Table(new Philosopher[0], new Chopstick[0], 0);
+    private volatile boolean running = true;
+
+    // Server thread only
+    private int n;
+    private byte[] states = new byte[0], shownStates = new byte[0];
+    private int[] owners = new int[0], shownOwners = new int[0];
+    private int[] changed = new int[0];
+    private int sequence;
+
+    private volatile long framesSent, bytesSent, framesSkipped;
+
+    public TelemetryServer(InetSocketAddress address, long periodMs) throws IOException
+    {
+        this.periodMs = periodMs;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() { return server.socket().getLocalPort(); }
+
+    // Any thread, like DeadlockDetector.setTable: the first n seats of the
+    // arrays are picked up on the next sample
+    public void setTable(Philosopher[] philosophers, Chopstick[] chopsticks, int n)
+    {
+        table = new Table(philosophers, chopsticks, n);
+    }
+
+    public void start()
+    {
+        Thread t = new Thread(this, "Telemetry-Server");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Any thread
+    public void stop()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    public long getFramesSent() { return framesSent; }
+    public long getBytesSent() { return bytesSent; }
+    public long getFramesSkipped() { return framesSkipped; }
+
+    @Override
+    public void run()
+    {
+        long nextSample = System.nanoTime();
+        try
+        {
+            while (running)
+            {
+                long wait = (nextSample - System.nanoTime()) / 1_000_000;
+                if (wait > 0) selector.select(wait);
+                else selector.selectNow();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else if (key.isReadable()) drain((Client) key.attachment());
+                    else if (key.isWritable()) write((Client) key.attachment());
+                }
+
+                if (System.nanoTime() - nextSample >= 0)
+                {
+                    sample();
+                    nextSample += periodMs * 1_000_000;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            System.out.println("Telemetry server stopped: " + e.getMessage());
+        }
+        finally
+        {
+            for (Client c : new ArrayList<>(clients)) close(c);
+            try
+            {
+                server.close();
+                selector.close();
+            }
+            catch (IOException e)
+            {
+                System.out.println("Could not close the telemetry server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException
+    {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            Client c = new Client(channel);
+            c.key = channel.register(selector, SelectionKey.OP_READ, c);
+            clients.add(c);
+        }
+    }
+
+    // Clients don't talk; reading only notices them leaving
+    private void drain(Client c)
+    {
+        try
+        {
+            c.in.clear();
+            if (c.channel.read(c.in) < 0) close(c);
+        }
+        catch (IOException e)
+        {
+            close(c);
+        }
+    }
+
+    private void sample()
+    {
+        Table t = table;
+        ensureCapacity(t.n);
+        boolean resized = t.n != n;
+        n = t.n;
+        sequence++;
+        long now = System.nanoTime();
+
+        int changes = 0;
+        for (int i = 0; i < n; ++i)
+        {
+            Philosopher p = t.philosophers[i];
+            Chopstick c = t.chopsticks[i];
+            states[i] = (byte) (p != null ? p.getState() : 0);
+            owners[i] = c != null ? c.getOwner() : -1;
+            if (resized || states[i] != shownStates[i] || owners[i] != shownOwners[i]) changed[changes++] = i;
+        }
+        System.arraycopy(states, 0, shownStates, 0, n);
+        System.arraycopy(owners, 0, shownOwners, 0, n);
+
+        // Built at most once per sample and shared by every client that gets it.
+        // New buffers every time: a client can still be sending the last ones.
+        boolean key = resized || sequence % KEYFRAME_INTERVAL == 0;
+        ByteBuffer keyframe = null, delta = null;
+        for (int i = clients.size() - 1; i >= 0; --i)
+        {
+            Client c = clients.get(i);
+            if (c.out != null && c.out.hasRemaining())
+            {
+                // Still sending an older frame: skip this one, catch up with a keyframe
+                c.needsKeyframe = true;
+                framesSkipped++;
+                continue;
+            }
+
+            if (key || c.needsKeyframe)
+            {
+                if (keyframe == null) keyframe = buildKeyframe(now);
+                c.out = keyframe.duplicate();
+                c.needsKeyframe = false;
+            }
+            else
+            {
+                if (delta == null) delta = buildDelta(now, changes);
+                c.out = delta.duplicate();
+            }
+            write(c);
+        }
+    }
+
+    private ByteBuffer buildKeyframe(long now)
+    {
+        ByteBuffer keyframe = header(KEYFRAME, now, n * (1 + MAX_VARINT));
+        for (int i = 0; i < n; ++i)
+        {
+            keyframe.put(states[i]);
+            putVarint(keyframe, owners[i] + 1);
+        }
+        return finish(keyframe);
+    }
+
+    private ByteBuffer buildDelta(long now, int changes)
+    {
+        ByteBuffer delta = header(DELTA, now, MAX_VARINT + changes * (2 * MAX_VARINT + 1));
+        putVarint(delta, changes);
+        int previous = 0;
+        for (int k = 0; k < changes; ++k)
+        {
+            int seat = changed[k];
+            putVarint(delta, seat - previous);
+            delta.put(states[seat]);
+            putVarint(delta, owners[seat] + 1);
+            previous = seat;
+        }
+        return finish(delta);
+    }
+
+    // A buffer for a frame of at most body bytes after the header
+    private ByteBuffer header(byte type, long now, int body)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + body);
+        buffer.putInt(0).put(type).putInt(sequence).putLong(now).putInt(n);
+        return buffer;
+    }
+
+    private static ByteBuffer finish(ByteBuffer buffer)
+    {
+        buffer.putInt(0, buffer.position() - 4);
+        buffer.flip();
+        return buffer;
+    }
+
+    private void write(Client c)
+    {
+        try
+        {
+            int written = c.channel.write(c.out);
+            bytesSent += written;
+            if (!c.out.hasRemaining()) framesSent++;
+        }
+        catch (IOException e)
+        {
+            close(c);
+            return;
+        }
+        if (c.key.isValid())
+            c.key.interestOps(c.out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void close(Client c)
+    {
+        if (!clients.remove(c)) return;
+        c.key.cancel();
+        try
+        {
+            c.channel.close();
+        }
+        catch (IOException e)
+        {
+            // Gone either way
+        }
+    }
+
+    static void putVarint(ByteBuffer buffer, int value)
+    {
+        while ((value & ~0x7f) != 0)
+        {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer buffer)
+    {
+        int value = 0;
+        for (int shift = 0; ; shift += 7)
+        {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private void ensureCapacity(int size)
+    {
+        if (size <= states.length) return;
+        int capacity = Math.max(size, states.length * 2);
+        states = Arrays.copyOf(states, capacity);
+        shownStates = Arrays.copyOf(shownStates, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        shownOwners = Arrays.copyOf(shownOwners, capacity);
+        changed = Arrays.copyOf(changed, capacity);
+    }
+
+    private static class Table
+    {
+        final Philosopher[] philosophers;
+        final Chopstick[] chopsticks;
+        final int n;
+
+        Table(Philosopher[] philosophers, Chopstick[] chopsticks, int n)
+        {
+            this.philosophers = philosophers;
+            this.chopsticks = chopsticks;
+            this.n = n;
+        }
+    }
+
+    private static class Client
+    {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        SelectionKey key;
+        ByteBuffer out;              // Frame being sent: a view of a shared keyframe or delta
+        boolean needsKeyframe = true;
+
+        Client(SocketChannel channel)
+        {
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// JSON results of a HotPathBenchmark run, and the check against a stored
+// baseline. Only reads back the format it writes. Contended benchmarks have
+// their thread count in the params, and the run's worker count is stored
+// too: a baseline only compares with a run that used the same workers.
+public class BenchmarkReport
+{
+    private static final Pattern ENTRY = Pattern.compile(
+            "\\{\\s*\"benchmark\"\\s*:\\s*\"([^\"]*)\"\\s*,\\s*\"params\"\\s*:\\s*\"([^\"]*)\"\\s*,"
+            + "\\s*\"score\"\\s*:\\s*([-+0-9.eE]+)\\s*,\\s*\"error\"\\s*:\\s*([-+0-9.eE]+)");
+    private static final Pattern CPUS = Pattern.compile("\"cpus\"\\s*:\\s*(\\d+)");
+    private static final Pattern WORKERS = Pattern.compile("\"workers\"\\s*:\\s*(\\d+)");
+
+    public static class Entry
+    {
+        private final String benchmark;
+        private final String params;
+        private final double score;
+        private final double error;
+
+        public Entry(String benchmark, String params, double score, double error)
+        {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.score = score;
+            this.error = error;
+        }
+
+        public String getKey() { return benchmark + " " + params; }
+        public String getBenchmark() { return benchmark; }
+        public String getParams() { return params; }
+        public double getScore() { return score; }
+        public double getError() { return error; }
+    }
+
+    public static void write(List<Entry> entries, int workers, Path file) throws IOException
+    {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"jvm\": \"").append(System.getProperty("java.vm.name")).append(' ')
+                .append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"cpus\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"workers\": ").append(workers).append(",\n");
+        json.append("  \"unit\": \"ops/s\",\n");
+        json.append("  \"results\": [\n");
+        for (int i = 0; i < entries.size(); ++i)
+        {
+            Entry e = entries.get(i);
+            json.append(String.format(Locale.ROOT, "    { \"benchmark\": \"%s\", \"params\": \"%s\", \"score\": %.1f, \"error\": %.1f }%s%n",
+                    e.benchmark, e.params, e.score, e.error, i + 1 < entries.size() ? "," : ""));
+        }
+        json.append("  ]\n}\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static List<Entry> read(Path file) throws IOException
+    {
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        List<Entry> entries = new ArrayList<>();
+        Matcher m = ENTRY.matcher(json);
+        while (m.find())
+            entries.add(new Entry(m.group(1), m.group(2), Double.parseDouble(m.group(3)), Double.parseDouble(m.group(4))));
+        return entries;
+    }
+
+    // The run's "cpus" or "workers", -1 if the file doesn't say
+    public static int readCpus(Path file) throws IOException { return readInt(file, CPUS); }
+    public static int readWorkers(Path file) throws IOException { return readInt(file, WORKERS); }
+
+    private static int readInt(Path file, Pattern field) throws IOException
+    {
+        Matcher m = field.matcher(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        return m.find() ? Integer.parseInt(m.group(1)) : -1;
+    }
+
+    // A result regresses when it is more than tolerance (0.2 = 20%) below its
+    // baseline score even after giving both runs the benefit of their error.
+    // Benchmarks missing from the baseline are only reported. Returns the
+    // number of regressions.
+    public static int compare(List<Entry> results, List<Entry> baseline, double tolerance, PrintStream out)
+    {
+        Map<String, Entry> expected = new HashMap<>();
+        for (Entry e : baseline) expected.put(e.getKey(), e);
+
+        int regressions = 0;
+        out.printf("%-51s %14s %14s %8s%n", "benchmark", "baseline", "now", "change");
+        for (Entry e : results)
+        {
+            Entry base = expected.get(e.getKey());
+            if (base == null)
+            {
+                out.printf("%-51s %14s %14.1f %8s%n", e.getKey(), "-", e.score, "new");
+                continue;
+            }
+
+            double change = base.score > 0 ? e.score / base.score - 1 : 0;
+            boolean regressed = e.score + e.error + base.error < base.score * (1 - tolerance);
+            if (regressed) regressions++;
+            out.printf("%-51s %14.1f %14.1f %+7.1f%%%s%n", e.getKey(), base.score, e.score, 100 * change,
+                    regressed ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,42 @@
+package simulation;
+
+import models.Chopstick;
+import models.ChopstickTable;
+
+// Chopstick owners by index, on whichever store was picked at startup:
+// Chopstick objects or a ChopstickTable. Shared by StoreBenchmark and the
+// SimulationEngine.
+interface ChopstickStore
+{
+    boolean tryPickUp(int chopstick, int philosopher);
+    void putDown(int chopstick);
+    int getOwner(int chopstick);
+
+    static ChopstickStore create(StoreKind store, int size)
+    {
+        switch (store)
+        {
+            case OBJECT:
+            {
+                Chopstick[] chopsticks = new Chopstick[size];
+                for (int i = 0; i < size; ++i) chopsticks[i] = new Chopstick(i);
+                return new ChopstickStore()
+                {
+                    public boolean tryPickUp(int c, int p) { return chopsticks[c].tryPickUp(p); }
+                    public void putDown(int c) { chopsticks[c].putDown(); }
+                    public int getOwner(int c) { return chopsticks[c].getOwner(); }
+                };
+            }
+            default:
+            {
+                ChopstickTable table = new ChopstickTable(size, store == StoreKind.PADDED);
+                return new ChopstickStore()
+                {
+                    public boolean tryPickUp(int c, int p) { return table.tryPickUp(c, p); }
+                    public void putDown(int c) { table.putDown(c); }
+                    public int getOwner(int c) { return table.getOwner(c); }
+                };
+            }
+        }
+    }
+}
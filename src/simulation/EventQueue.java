@@ -0,0 +1,69 @@
+package simulation;
+
+import java.util.Arrays;
+
+// Binary min-heap of (time, payload) pairs kept in primitive arrays, so
+// millions of scheduled events don't cost one object each.
+public class EventQueue
+{
+    private long[] times;
+    private int[] payloads;
+    private int size;
+
+    public EventQueue(int capacity)
+    {
+        times = new long[Math.max(capacity, 16)];
+        payloads = new int[times.length];
+    }
+
+    public void push(long time, int payload)
+    {
+        if (size == times.length)
+        {
+            times = Arrays.copyOf(times, size * 2);
+            payloads = Arrays.copyOf(payloads, size * 2);
+        }
+
+        // Sift up
+        int i = size++;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (times[parent] <= time) break;
+            times[i] = times[parent];
+            payloads[i] = payloads[parent];
+            i = parent;
+        }
+        times[i] = time;
+        payloads[i] = payload;
+    }
+
+    // Removes the earliest event and returns its payload
+    public int pop()
+    {
+        int top = payloads[0];
+        long time = times[--size];
+        int payload = payloads[size];
+
+        // Sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half)
+        {
+            int child = 2*i + 1;
+            if (child + 1 < size && times[child + 1] < times[child]) child++;
+            if (time <= times[child]) break;
+            times[i] = times[child];
+            payloads[i] = payloads[child];
+            i = child;
+        }
+        times[i] = time;
+        payloads[i] = payload;
+        return top;
+    }
+
+    public long peekTime() { return times[0]; }
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+    public void clear() { size = 0; }
+}
@@ -0,0 +1,95 @@
+package simulation;
+
+import metrics.LatencyHistogram;
+import models.BatchScheduler;
+import models.ConflictGraph;
+import models.ExecutionMode;
+import models.GraphArbiter;
+import models.GraphDiner;
+import models.Timing;
+
+import java.io.PrintStream;
+
+// Runs one thread per diner of a ConflictGraph with one arbiter and
+// measures meals/sec, how many diners eat at once on average (total time
+// eating over the window) against the largest colour class, hunger time
+// and fairness. Comparing "ordered" (every diner locks its own resources)
+// with "batch" (one scheduler picks the eaters) on the same graph and seed
+// shows what central scheduling buys.
+public class GraphBenchmark
+{
+    private final ConflictGraph graph;
+    private final String arbiterName;
+    private final Timing timing;
+    private final ExecutionMode executionMode;
+    private final long seed;
+
+    public GraphBenchmark(ConflictGraph graph, String arbiterName, Timing timing, ExecutionMode executionMode, long seed)
+    {
+        this.graph = graph;
+        this.arbiterName = arbiterName;
+        this.timing = timing;
+        this.executionMode = executionMode;
+        this.seed = seed;
+    }
+
+    public void run(long durationMs, PrintStream out) throws InterruptedException
+    {
+        int n = graph.getDiners();
+        GraphArbiter arbiter = GraphArbiter.create(arbiterName, graph);
+        LatencyHistogram hunger = new LatencyHistogram();
+        GraphDiner[] diners = new GraphDiner[n];
+        Thread[] threads = new Thread[n];
+        for (int d = 0; d < n; ++d)
+        {
+            diners[d] = new GraphDiner(d, arbiter, timing, hunger);
+            diners[d].setSeed(seed);
+        }
+
+        arbiter.start();
+        for (int d = 0; d < n; ++d)
+        {
+            threads[d] = executionMode.newThread(diners[d], "Diner-" + d);
+            threads[d].start();
+        }
+
+        long start = System.nanoTime();
+        Thread.sleep(durationMs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join();
+        arbiter.stop();
+
+        long meals = 0, eating = 0;
+        double squares = 0;
+        for (GraphDiner d : diners)
+        {
+            meals += d.getMeals();
+            eating += d.getEatingNanos();
+            squares += (double) d.getMeals() * d.getMeals();
+        }
+        double fairness = squares == 0 ? 1.0 : ((double) meals * meals) / (n * squares);
+        String batches = arbiter instanceof BatchScheduler
+                ? String.format("%.2f", ((BatchScheduler) arbiter).getAdmitted() / (double) Math.max(1, ((BatchScheduler) arbiter).getRounds()))
+                : "-";
+
+        out.printf("%-8s %-8s %7d %5.1f %7d %10.2f %9.2f %9d %12.1f %12.1f %9.4f %9s%n", graph.getName(), arbiterName, n,
+                graph.getMeanNeeds(), graph.getColourCount(), meals / seconds, eating / 1e9 / seconds,
+                largestColourClass(), hunger.getMean() / 1e6, hunger.getPercentile(0.99) / 1e6, fairness, batches);
+    }
+
+    private int largestColourClass()
+    {
+        int[] sizes = new int[graph.getColourCount()];
+        int largest = 0;
+        for (int d = 0; d < graph.getDiners(); ++d) largest = Math.max(largest, ++sizes[graph.getColour(d)]);
+        return largest;
+    }
+
+    public static void printHeader(PrintStream out)
+    {
+        out.printf("%-8s %-8s %7s %5s %7s %10s %9s %9s %12s %12s %9s %9s%n", "graph", "arbiter", "diners", "k",
+                "colours", "meals/s", "eating", "indep", "hunger ms", "p99 ms", "fairness", "per round");
+    }
+}
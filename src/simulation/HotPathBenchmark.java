@@ -0,0 +1,292 @@
+package simulation;
+
+import graphics.MonitorPanel;
+import journal.EventJournal;
+import journal.EventLog;
+import models.AcquisitionStrategy;
+import models.Chopstick;
+import models.DinerListener;
+import models.Philosopher;
+import models.Table;
+import models.TableSnapshot;
+import models.Timing;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Microbenchmarks for the concurrency hot paths, run like JMH would:
+// warmup iterations, then measured iterations, reported as mean ops/s with
+// the spread between iterations as the error.
+//   chopstick.pickUpPutDown  tryPickUp + putDown on one chopstick, 1..N threads
+//   philosopher.cycle        full Philosopher loops, waits replaced by CPU work
+//   snapshot.seatChanged / monitor.logMonitor  as the table grows
+//   journal.record           the binary event record that sits next to logMonitor
+//   eventlog.record          a primitive log record, drained in the background
+public class HotPathBenchmark
+{
+    private static final int[] SEATS = { 5, 64, 1024 };
+    private static final int[] MONITOR_SIZES = { 5, 1000, 100_000 };
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationMs;
+    private final int maxThreads;
+    private final int work;
+    private final List<String> failures = new ArrayList<>();
+
+    // work: spin iterations standing in for each millisecond a philosopher would wait
+    public HotPathBenchmark(int warmups, int iterations, long iterationMs, int maxThreads, int work)
+    {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationMs = iterationMs;
+        this.maxThreads = maxThreads;
+        this.work = work;
+    }
+
+    public List<BenchmarkReport.Entry> run(PrintStream out) throws InterruptedException, IOException
+    {
+        List<BenchmarkReport.Entry> entries = new ArrayList<>();
+        printHeader(out);
+
+        // 1, 2, 4, ... and always maxThreads itself
+        for (int threads = 1; threads < maxThreads * 2; threads *= 2)
+        {
+            final int t = Math.min(threads, maxThreads);
+            entries.add(measure(out, "chopstick.pickUpPutDown", "threads=" + t, ms -> chopstick(t, ms)));
+            if (t == maxThreads) break;
+        }
+
+        for (int seats : SEATS)
+            entries.add(measure(out, "philosopher.cycle", "seats=" + seats + ",work=" + work, ms -> cycle(seats, ms)));
+
+        for (int n : MONITOR_SIZES)
+        {
+            MonitorPanel monitor = new MonitorPanel(null, n, MonitorPanel.DEFAULT_LOG_RETENTION);
+            TableSnapshot snapshot = new TableSnapshot(n);
+            String params = "n=" + n + ",threads=" + maxThreads;
+            entries.add(measure(out, "snapshot.seatChanged", params, ms -> seatChanged(snapshot, n, ms)));
+            entries.add(measure(out, "monitor.logMonitor", params, ms -> log(monitor, n, ms)));
+        }
+
+        Path file = Files.createTempFile("journal", ".bin");
+        try (EventJournal journal = EventJournal.create(file))
+        {
+            entries.add(measure(out, "journal.record", "threads=" + maxThreads, ms -> record(journal, ms)));
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+        }
+
+        // A ring per worker, drained every millisecond with room for far more:
+        // a dropped record would measure the drop instead of the record
+        EventLog log = new EventLog(maxThreads, 1 << 20, 1);
+        log.start();
+        entries.add(measure(out, "eventlog.record", "threads=" + maxThreads, ms -> record(log, ms)));
+        log.close();
+        out.println("eventlog.record dropped " + log.getDropped() + " records");
+        if (log.getDropped() > 0) failures.add("eventlog.record dropped " + log.getDropped() + " records");
+        return entries;
+    }
+
+    // Cases whose score can't be trusted, empty after a clean run
+    public List<String> getFailures() { return failures; }
+
+    private BenchmarkReport.Entry measure(PrintStream out, String name, String params, Iteration iteration)
+            throws InterruptedException
+    {
+        for (int i = 0; i < warmups; ++i) iteration.run(iterationMs);
+
+        double[] scores = new double[iterations];
+        for (int i = 0; i < iterations; ++i)
+        {
+            long start = System.nanoTime();
+            long ops = iteration.run(iterationMs);
+            scores[i] = ops / ((System.nanoTime() - start) / 1e9);
+        }
+
+        double mean = 0;
+        for (double s : scores) mean += s;
+        mean /= scores.length;
+        double variance = 0;
+        for (double s : scores) variance += (s - mean) * (s - mean);
+        double error = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+
+        BenchmarkReport.Entry entry = new BenchmarkReport.Entry(name, params, mean, error);
+        out.printf("%-28s %-22s %16.1f %14.1f%n", name, params, mean, error);
+        return entry;
+    }
+
+    public static void printHeader(PrintStream out)
+    {
+        out.printf("%-28s %-22s %16s %14s%n", "benchmark", "params", "ops/s", "error");
+    }
+
+    // Every thread hammers the same chopstick; counts successful pick-up + put-down pairs
+    private static long chopstick(int threads, long durationMs) throws InterruptedException
+    {
+        Chopstick chopstick = new Chopstick(0);
+        return contend(threads, durationMs, (id, stop) ->
+        {
+            long ops = 0;
+            while (!stop.get())
+            {
+                if (chopstick.tryPickUp(id))
+                {
+                    chopstick.putDown();
+                    ops++;
+                }
+            }
+            return ops;
+        });
+    }
+
+    // Real philosopher threads with a CPU-bound Timing; counts meals
+    private long cycle(int seats, long durationMs) throws InterruptedException
+    {
+        Table table = new Table(seats, DinerListener.NONE, AcquisitionStrategy.create("hierarchy", seats),
+                new WorkTiming(work));
+
+        Thread[] threads = new Thread[seats];
+        for (int i = 0; i < seats; ++i)
+        {
+            threads[i] = new Thread(table.getPhilosophers()[i], "Philosopher-" + i);
+            threads[i].start();
+        }
+
+        long before = table.getTotalMeals();
+        Thread.sleep(durationMs);
+        long meals = table.getTotalMeals() - before;
+
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join();
+        return meals;
+    }
+
+    // What a philosopher's state change costs now that the panel samples it
+    private long seatChanged(TableSnapshot snapshot, int n, long durationMs) throws InterruptedException
+    {
+        return contend(maxThreads, durationMs, (id, stop) ->
+        {
+            long ops = 0;
+            for (int i = id % n; !stop.get(); i = i + maxThreads < n ? i + maxThreads : id % n)
+            {
+                snapshot.seatChanged(i, (int) (ops % 3));
+                ops++;
+            }
+            return ops;
+        });
+    }
+
+    // Builds a line per call, as the GUI's log gets them from the event log's drain thread
+    private long log(MonitorPanel monitor, int n, long durationMs) throws InterruptedException
+    {
+        return contend(maxThreads, durationMs, (id, stop) ->
+        {
+            long ops = 0;
+            for (int i = id % n; !stop.get(); i = i + maxThreads < n ? i + maxThreads : id % n)
+            {
+                monitor.logMonitor("Philosopher " + i + " is hungry");
+                ops++;
+            }
+            return ops;
+        });
+    }
+
+    private long record(EventJournal journal, long durationMs) throws InterruptedException
+    {
+        return contend(maxThreads, durationMs, (id, stop) ->
+        {
+            long ops = 0;
+            for (int i = id; !stop.get(); i += maxThreads)
+            {
+                journal.record(System.nanoTime(), i & 1023, EventJournal.PICKED_UP, i & 511);
+                ops++;
+            }
+            return ops;
+        });
+    }
+
+    private long record(EventLog log, long durationMs) throws InterruptedException
+    {
+        return contend(maxThreads, durationMs, (id, stop) ->
+        {
+            long ops = 0;
+            for (int i = id; !stop.get(); i += maxThreads)
+            {
+                log.record(System.nanoTime(), i & 1023, EventLog.HUNGRY, -1);
+                ops++;
+            }
+            return ops;
+        });
+    }
+
+    private static long contend(int threads, long durationMs, Worker worker) throws InterruptedException
+    {
+        AtomicBoolean stop = new AtomicBoolean();
+        long[] ops = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; ++i)
+        {
+            final int id = i;
+            workers[i] = new Thread(() -> ops[id] = worker.run(id, stop), "Bench-" + i);
+            workers[i].start();
+        }
+
+        Thread.sleep(durationMs);
+        stop.set(true);
+
+        long total = 0;
+        for (int i = 0; i < threads; ++i)
+        {
+            workers[i].join();
+            total += ops[i];
+        }
+        return total;
+    }
+
+    private interface Iteration
+    {
+        long run(long durationMs) throws InterruptedException;
+    }
+
+    private interface Worker
+    {
+        long run(int id, AtomicBoolean stop);
+    }
+
+    // Default proportions, but every wait spins work iterations per millisecond
+    // instead of sleeping, so the cycle measures the locking, not the scheduler
+    private static class WorkTiming extends Timing
+    {
+        private final int work;
+    private final List<String> failures = new ArrayList<>();
+        private long sink;
+
+        WorkTiming(int work)
+        {
+            super(0, 3000, 2000, 3000, 2000, 1000);
+            this.work = work;
+        }
+
+        @Override
+        public void pause(long millis) throws InterruptedException
+        {
+            long x = sink | 1;
+            for (long i = millis * work; i > 0; --i)
+            {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+            }
+            sink = x; // Keep the loop from being optimised away
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package simulation;
+
+import metrics.DinerMetrics;
+import models.AcquisitionStrategy;
+import models.DeterministicClock;
+import models.DinerListener;
+import models.Distribution;
+import models.ExecutionMode;
+import models.SimulationClock;
+import models.Table;
+import models.Timing;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs every combination of seat count, think/eat timing and acquisition
+// strategy as an independent headless table (real Philosopher threads,
+// DinerListener.NONE) and collects throughput, hunger latency and fairness.
+//
+// Configurations are split recursively over a fork-join pool of parallel
+// workers, each running one table at a time, so the sweep takes about
+// configurations / parallel table runs. Every table waits on its own
+// SimulationClock at speed, so the default 3 s think time costs 3 s / speed
+// of real time; results are in simulated time. Deterministic sweeps run each
+// table on a DeterministicClock instead, as fast as it goes, and give the
+// same CSV for the same seed.
+//
+// Repeat r of every configuration draws from seed + r, so strategies are
+// compared on the same think and eat times.
+public class ParameterSweep
+{
+    public static class Config
+    {
+        private final int seats;
+        private final String strategy;
+        private final Distribution distribution;
+        private final double eatRatio; // Eat time relative to Timing.DEFAULT
+        private final int repeat;
+
+        public Config(int seats, String strategy, Distribution distribution, double eatRatio, int repeat)
+        {
+            this.seats = seats;
+            this.strategy = strategy;
+            this.distribution = distribution;
+            this.eatRatio = eatRatio;
+            this.repeat = repeat;
+        }
+
+        public int getSeats() { return seats; }
+        public String getStrategy() { return strategy; }
+        public Distribution getDistribution() { return distribution; }
+        public double getEatRatio() { return eatRatio; }
+        public int getRepeat() { return repeat; }
+    }
+
+    public static class Result
+    {
+        private final Config config;
+        private final long meals;
+        private final double mealsPerSecond;
+        private final double hungerP50Millis;
+        private final double hungerP99Millis;
+        private final double fairness;
+        private final long retries;
+
+        Result(Config config, long meals, double mealsPerSecond, double hungerP50Millis, double hungerP99Millis,
+               double fairness, long retries)
+        {
+            this.config = config;
+            this.meals = meals;
+            this.mealsPerSecond = mealsPerSecond;
+            this.hungerP50Millis = hungerP50Millis;
+            this.hungerP99Millis = hungerP99Millis;
+            this.fairness = fairness;
+            this.retries = retries;
+        }
+
+        public Config getConfig() { return config; }
+        public double getMealsPerSecond() { return mealsPerSecond; }
+        public double getHungerP99Millis() { return hungerP99Millis; }
+        public double getFairness() { return fairness; }
+
+        String toCsv()
+        {
+            return String.format(Locale.ROOT, "%s,%d,%s,%.2f,%d,%d,%.3f,%.1f,%.1f,%.4f,%d",
+                    config.strategy, config.seats, config.distribution.name().toLowerCase(), config.eatRatio,
+                    config.repeat, meals, mealsPerSecond, hungerP50Millis, hungerP99Millis, fairness, retries);
+        }
+    }
+
+    static final String CSV_HEADER =
+            "strategy,seats,distribution,eat_ratio,repeat,meals,meals_per_s,hunger_p50_ms,hunger_p99_ms,fairness,retries";
+
+    private final List<Config> configs;
+    private final long durationMs; // Simulated time each table runs
+    private final double speed;
+    private final ExecutionMode executionMode;
+    private final int parallel;
+    private final long seed;
+    private final boolean deterministic;
+
+    public ParameterSweep(List<Config> configs, long durationMs, double speed, ExecutionMode executionMode, int parallel,
+                          long seed, boolean deterministic)
+    {
+        this.configs = configs;
+        this.durationMs = durationMs;
+        this.speed = speed;
+        this.executionMode = executionMode;
+        this.parallel = parallel;
+        this.seed = seed;
+        this.deterministic = deterministic;
+    }
+
+    // Every combination, strategies varying fastest
+    public static List<Config> grid(int[] seats, String[] strategies, Distribution[] distributions, double[] eatRatios,
+                                    int repeats)
+    {
+        List<Config> configs = new ArrayList<>();
+        for (int s : seats)
+            for (Distribution d : distributions)
+                for (double ratio : eatRatios)
+                    for (int r = 0; r < repeats; ++r)
+                        for (String strategy : strategies)
+                            configs.add(new Config(s, strategy, d, ratio, r));
+        return configs;
+    }
+
+    // Results in configuration order; progress lines go to out as tables finish
+    public Result[] run(PrintStream out)
+    {
+        Result[] results = new Result[configs.size()];
+        ForkJoinPool pool = new ForkJoinPool(parallel);
+        try
+        {
+            pool.invoke(new Slice(results, 0, configs.size(), out));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    public static void writeCsv(Result[] results, Path file) throws IOException
+    {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        for (Result r : results) csv.append(r.toCsv()).append('\n');
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Splits its range in halves down to single configurations
+    @SuppressWarnings("serial")
+    private class Slice extends RecursiveAction
+    {
+        private final Result[] results;
+        private final int from, to;
+        private final PrintStream out;
+
+        Slice(Result[] results, int from, int to, PrintStream out)
+        {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from > 1)
+            {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Slice(results, from, mid, out), new Slice(results, mid, to, out));
+                return;
+            }
+
+            try
+            {
+                results[from] = runTable(configs.get(from));
+                synchronized (out)
+                {
+                    out.println(results[from].toCsv());
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Sweep interrupted", e);
+            }
+        }
+    }
+
+    private Result runTable(Config config) throws InterruptedException
+    {
+        SimulationClock clock;
+        if (deterministic)
+        {
+            clock = new DeterministicClock(config.seats);
+        }
+        else
+        {
+            clock = new SimulationClock();
+            clock.setSpeed(speed);
+        }
+        Timing timing = Timing.DEFAULT.withEatScaled(config.eatRatio).withDistribution(config.distribution).withClock(clock);
+
+        DinerMetrics metrics = new DinerMetrics(config.seats);
+        Table table = new Table(config.seats, DinerListener.NONE, AcquisitionStrategy.create(config.strategy, config.seats),
+                timing);
+        table.setMetrics(metrics);
+        table.setSeed(seed + config.repeat);
+
+        Thread[] threads = new Thread[config.seats];
+        for (int i = 0; i < config.seats; ++i)
+        {
+            threads[i] = executionMode.newThread(table.getPhilosophers()[i], "Sweep-Philosopher-" + i);
+            threads[i].start();
+        }
+
+        long start = clock.nanoTime();
+        clock.sleep(durationMs);
+        long meals = table.getTotalMeals();
+        double seconds = (clock.nanoTime() - start) / 1e9;
+        double fairness = table.getFairness();
+
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join();
+
+        return new Result(config, meals, meals / seconds, metrics.getHungerP50Millis(), metrics.getHungerP99Millis(),
+                fairness, metrics.getTotalRetries());
+    }
+}
@@ -0,0 +1,201 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+// Headless, discrete-event version of the table. Every seat runs the same
+// cycle as Philosopher.run, but as a state machine on a virtual clock:
+// nothing sleeps, the engine jumps straight to the next scheduled event.
+// Times are in virtual milliseconds. Chopstick owners live in the store
+// picked at startup (StoreKind).
+public class SimulationEngine
+{
+    // Event codes (low 3 bits of each payload, seat index in the rest)
+    private static final int JOINED = 0;
+    private static final int THINK_DONE = 1;
+    private static final int FIRST_MOVED = 2;
+    private static final int SECOND_MOVED = 3;
+    private static final int EAT_DONE = 4;
+    private static final int SECOND_PUT_DOWN = 5;
+    private static final int FIRST_PUT_DOWN = 6;
+
+    // Same timings as Philosopher
+    private static final int JOIN_DELAY = 50;
+    private static final int THINK_TIME = 3000;
+    private static final int EAT_TIME = 3000;
+    private static final int TIME_JITTER = 2000;
+    private static final int CHOPSTICK_ANIMATION_TIME = 1000;
+
+    private final int n;
+    private final SplittableRandom random;
+    private final EventQueue events;
+
+    // Per seat
+    private final int[] state;
+    private final int[] first;
+    private final int[] second;
+    private final long[] hungrySince;
+    private final long[] stateSince;
+    private final int[] meals;
+
+    // Per chopstick
+    private final ChopstickStore owners;
+    private final int[] waiters;
+
+    private long now;
+    private long eventCount;
+    private long hungerTotal;
+    private long hungerMax;
+    private final long[] stateTotals = new long[3];
+
+    public SimulationEngine(int n, long seed)
+    {
+        this(n, seed, StoreKind.ARRAY);
+    }
+
+    public SimulationEngine(int n, long seed, StoreKind store)
+    {
+        if (n < 2) throw new IllegalArgumentException("A table needs at least 2 seats");
+
+        this.n = n;
+        random = new SplittableRandom(seed);
+        events = new EventQueue(n);
+
+        state = new int[n];
+        first = new int[n];
+        second = new int[n];
+        hungrySince = new long[n];
+        stateSince = new long[n];
+        meals = new int[n];
+        owners = ChopstickStore.create(store, n);
+        waiters = new int[n];
+
+        // Same wiring as DinerPanel.fillModels: the last seat reaches for
+        // chopstick 0 first, which breaks the circular wait
+        for (int i = 0; i < n-1; ++i)
+        {
+            first[i] = i;
+            second[i] = i + 1;
+        }
+        first[n-1] = 0;
+        second[n-1] = n-1;
+
+        for (int i = 0; i < n; ++i)
+        {
+            waiters[i] = -1;
+            schedule(JOIN_DELAY, i, JOINED);
+        }
+    }
+
+    public SimulationResult run(long durationMs)
+    {
+        long start = System.nanoTime();
+        long end = now + durationMs;
+
+        while (!events.isEmpty() && events.peekTime() <= end)
+        {
+            now = events.peekTime();
+            int payload = events.pop();
+            handle(payload >>> 3, payload & 7);
+            eventCount++;
+        }
+        now = end;
+
+        // Close the state intervals that are still open
+        long[] totals = stateTotals.clone();
+        for (int i = 0; i < n; ++i)
+            totals[state[i]] += now - stateSince[i];
+
+        return new SimulationResult(n, now, eventCount, System.nanoTime() - start,
+                meals.clone(), hungerTotal, hungerMax, totals);
+    }
+
+    private void handle(int seat, int event)
+    {
+        switch (event)
+        {
+            case JOINED:
+            {
+                enter(seat, 0); // Thinking
+                schedule(THINK_TIME + random.nextInt(TIME_JITTER), seat, THINK_DONE);
+                break;
+            }
+            case THINK_DONE:
+            {
+                enter(seat, 1); // Hungry
+                hungrySince[seat] = now;
+                acquire(seat, first[seat], FIRST_MOVED);
+                break;
+            }
+            case FIRST_MOVED:
+            {
+                acquire(seat, second[seat], SECOND_MOVED);
+                break;
+            }
+            case SECOND_MOVED:
+            {
+                enter(seat, 2); // Eating
+                long hunger = now - hungrySince[seat];
+                hungerTotal += hunger;
+                if (hunger > hungerMax) hungerMax = hunger;
+                meals[seat]++;
+                schedule(EAT_TIME + random.nextInt(TIME_JITTER), seat, EAT_DONE);
+                break;
+            }
+            case EAT_DONE:
+            {
+                schedule(CHOPSTICK_ANIMATION_TIME, seat, SECOND_PUT_DOWN);
+                break;
+            }
+            case SECOND_PUT_DOWN:
+            {
+                release(second[seat]);
+                schedule(CHOPSTICK_ANIMATION_TIME, seat, FIRST_PUT_DOWN);
+                break;
+            }
+            case FIRST_PUT_DOWN:
+            {
+                release(first[seat]);
+                schedule(JOIN_DELAY, seat, JOINED);
+                break;
+            }
+        }
+    }
+
+    private void acquire(int seat, int chopstick, int nextEvent)
+    {
+        if (owners.tryPickUp(chopstick, seat))
+        {
+            schedule(CHOPSTICK_ANIMATION_TIME, seat, nextEvent);
+        }
+        else waiters[chopstick] = seat; // On a ring only one neighbour can be waiting
+    }
+
+    private void release(int chopstick)
+    {
+        owners.putDown(chopstick);
+        int waiter = waiters[chopstick];
+        if (waiter == -1) return;
+
+        // Hand the chopstick straight to the waiting neighbour
+        waiters[chopstick] = -1;
+        owners.tryPickUp(chopstick, waiter);
+        schedule(CHOPSTICK_ANIMATION_TIME, waiter, first[waiter] == chopstick ? FIRST_MOVED : SECOND_MOVED);
+    }
+
+    private void enter(int seat, int newState)
+    {
+        stateTotals[state[seat]] += now - stateSince[seat];
+        state[seat] = newState;
+        stateSince[seat] = now;
+    }
+
+    private void schedule(long delay, int seat, int event)
+    {
+        events.push(now + delay, (seat << 3) | event);
+    }
+
+    public int getN() { return n; }
+    public long getNow() { return now; }
+    public int getState(int seat) { return state[seat]; }
+    public int getOwner(int chopstick) { return owners.getOwner(chopstick); }
+}
@@ -0,0 +1,85 @@
+package simulation;
+
+import java.io.PrintStream;
+
+public class SimulationResult
+{
+    private final int n;
+    private final long simulatedMs;
+    private final long events;
+    private final long wallNanos;
+    private final int[] meals;
+    private final long hungerTotal;
+    private final long hungerMax;
+    private final long[] stateTotals;
+
+    public SimulationResult(int n, long simulatedMs, long events, long wallNanos,
+                            int[] meals, long hungerTotal, long hungerMax, long[] stateTotals)
+    {
+        this.n = n;
+        this.simulatedMs = simulatedMs;
+        this.events = events;
+        this.wallNanos = wallNanos;
+        this.meals = meals;
+        this.hungerTotal = hungerTotal;
+        this.hungerMax = hungerMax;
+        this.stateTotals = stateTotals;
+    }
+
+    public long getTotalMeals()
+    {
+        long total = 0;
+        for (int m : meals) total += m;
+        return total;
+    }
+
+    public double getMealsPerSecond()
+    {
+        return simulatedMs == 0 ? 0 : getTotalMeals() * 1000.0 / simulatedMs;
+    }
+
+    public double getMeanHungerMs()
+    {
+        long total = getTotalMeals();
+        return total == 0 ? 0 : (double) hungerTotal / total;
+    }
+
+    // Jain's index over meals per seat: 1.0 when every seat ate equally
+    public double getFairness()
+    {
+        double sum = 0, squares = 0;
+        for (int m : meals)
+        {
+            sum += m;
+            squares += (double) m * m;
+        }
+        return squares == 0 ? 1.0 : (sum * sum) / (meals.length * squares);
+    }
+
+    // Share of seat-time spent in the given state (0 thinking, 1 hungry, 2 eating)
+    public double getStateShare(int state)
+    {
+        long total = stateTotals[0] + stateTotals[1] + stateTotals[2];
+        return total == 0 ? 0 : (double) stateTotals[state] / total;
+    }
+
+    public void print(PrintStream out)
+    {
+        out.printf("Seats:               %d%n", n);
+        out.printf("Simulated time:      %.1f s%n", simulatedMs / 1000.0);
+        out.printf("Wall time:           %.3f s%n", wallNanos / 1e9);
+        out.printf("Events processed:    %d (%.0f/s)%n", events, events / (wallNanos / 1e9));
+        out.printf("Meals:               %d (%.2f/s simulated)%n", getTotalMeals(), getMealsPerSecond());
+        out.printf("Hunger mean / max:   %.1f ms / %d ms%n", getMeanHungerMs(), hungerMax);
+        out.printf("Thinking/Hungry/Eating: %.1f%% / %.1f%% / %.1f%%%n",
+                100 * getStateShare(0), 100 * getStateShare(1), 100 * getStateShare(2));
+        out.printf("Fairness (Jain):     %.4f%n", getFairness());
+    }
+
+    public int getN() { return n; }
+    public long getSimulatedMs() { return simulatedMs; }
+    public long getEvents() { return events; }
+    public long getWallNanos() { return wallNanos; }
+    public long getHungerMax() { return hungerMax; }
+    public int getMeals(int seat) { return meals[seat]; }
+}
@@ -0,0 +1,96 @@
+package simulation;
+
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Compares the per-object Chopstick against the primitive ChopstickTable:
+// heap bytes per chopstick, and tryPickUp/putDown throughput with several
+// threads each working a window of neighbouring chopsticks.
+public class StoreBenchmark
+{
+    // Window of adjacent chopsticks each thread cycles through; neighbouring
+    // threads overlap by half, like neighbouring philosophers
+    private static final int WINDOW = 64;
+
+    private final StoreKind store;
+    private final int size;
+    private final int threads;
+
+    public StoreBenchmark(StoreKind store, int size, int threads)
+    {
+        this.store = store;
+        this.size = size;
+        this.threads = threads;
+    }
+
+    public void run(long durationMs, PrintStream out) throws InterruptedException
+    {
+        long before = usedHeap();
+        ChopstickStore owners = ChopstickStore.create(store, size);
+        long footprint = usedHeap() - before;
+
+        LongAdder operations = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t)
+        {
+            final int id = t;
+            workers[t] = new Thread(() ->
+            {
+                SplittableRandom random = new SplittableRandom(id);
+                int base = (int) (((long) id * WINDOW / 2) % Math.max(1, size - WINDOW));
+                long ops = 0, misses = 0;
+                while (!Thread.currentThread().isInterrupted())
+                {
+                    int c = base + random.nextInt(Math.min(WINDOW, size));
+                    if (owners.tryPickUp(c, id))
+                    {
+                        owners.putDown(c);
+                        ops++;
+                    }
+                    else misses++;
+
+                    if ((ops & 0xFFFF) == 0)
+                    {
+                        operations.add(ops);
+                        conflicts.add(misses);
+                        ops = 0;
+                        misses = 0;
+                    }
+                }
+                operations.add(ops);
+                conflicts.add(misses);
+            }, "StoreBenchmark-" + t);
+        }
+
+        long start = System.nanoTime();
+        for (Thread w : workers) w.start();
+        Thread.sleep(durationMs);
+        for (Thread w : workers) w.interrupt();
+        for (Thread w : workers) w.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        out.printf("%-7s %11d %8d %12.1f %14.0f %10d%n", store.name().toLowerCase(), size, threads,
+                (double) footprint / size, operations.sum() / seconds, conflicts.sum());
+
+        // Keep the store reachable until it's been measured
+        if (owners.getOwner(0) == Integer.MIN_VALUE) out.println();
+    }
+
+    public static void printHeader(PrintStream out)
+    {
+        out.printf("%-7s %11s %8s %12s %14s %10s%n", "store", "chopsticks", "threads", "bytes/chop", "pickups/s", "conflicts");
+    }
+
+    private static long usedHeap() throws InterruptedException
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i)
+        {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,16 @@
+package simulation;
+
+// Which ChopstickStore the SimulationEngine and StoreBenchmark run on.
+// OBJECT: one Chopstick per slot. ARRAY: ChopstickTable, packed. PADDED:
+// ChopstickTable, one cache line per owner.
+public enum StoreKind
+{
+    OBJECT,
+    ARRAY,
+    PADDED;
+
+    public static StoreKind parse(String value)
+    {
+        return valueOf(value.toUpperCase());
+    }
+}
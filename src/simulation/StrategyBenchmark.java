@@ -0,0 +1,104 @@
+package simulation;
+
+import journal.EventJournal;
+import journal.EventLog;
+import metrics.DinerMetrics;
+import models.AcquisitionStrategy;
+import models.Chopstick;
+import models.DeterministicClock;
+import models.DinerListener;
+import models.ExecutionMode;
+import models.Philosopher;
+import models.SimulationClock;
+import models.Table;
+import models.Timing;
+import net.TelemetryServer;
+
+import java.io.PrintStream;
+
+// Runs real Philosopher threads with one acquisition strategy and measures
+// meals/sec, hunger time (hungry -> eating) and fairness. Use a scaled-down
+// Timing to get meaningful numbers in seconds instead of hours.
+//
+// The seed fixes every philosopher's think and eat times. Deterministic runs
+// go on a DeterministicClock, one philosopher at a time in simulated time,
+// so the same seed gives the same events (and journal) every time.
+public class StrategyBenchmark
+{
+    private final int n;
+    private final String strategyName;
+    private final Timing timing;
+    private final ExecutionMode executionMode;
+    private final long seed;
+    private final boolean deterministic;
+    private EventJournal journal = EventJournal.NONE;
+    private TelemetryServer telemetry;
+    private DinerListener listener = DinerListener.NONE;
+
+    public StrategyBenchmark(int n, String strategyName, Timing timing, ExecutionMode executionMode, long seed,
+                             boolean deterministic)
+    {
+        this.n = n;
+        this.strategyName = strategyName;
+        this.timing = timing;
+        this.executionMode = executionMode;
+        this.seed = seed;
+        this.deterministic = deterministic;
+    }
+
+    public void setJournal(EventJournal journal) { this.journal = journal; }
+    public void setTelemetry(TelemetryServer telemetry) { this.telemetry = telemetry; }
+
+    // Every philosopher's steps go to log; nothing else is reported
+    public void setEventLog(EventLog log)
+    {
+        listener = new DinerListener()
+        {
+            @Override public void logMonitor(String message) {}
+            @Override public void updateStatusPanel(Philosopher p) {}
+            @Override public void updatePhilosopherLabel(Philosopher p) {}
+            @Override public void animateMoveChopstick(Philosopher p, Chopstick c, int orientation, int direction) {}
+
+            @Override
+            public void logEvent(long nanos, int philosopher, int event, int chopstick)
+            {
+                log.record(nanos, philosopher, event, chopstick);
+            }
+        };
+    }
+
+    public void run(long durationMs, PrintStream out) throws InterruptedException
+    {
+        Timing timing = deterministic ? this.timing.withClock(new DeterministicClock(n)) : this.timing;
+        SimulationClock clock = timing.getClock();
+        DinerMetrics metrics = new DinerMetrics(n);
+        Table table = new Table(n, listener, AcquisitionStrategy.create(strategyName, n), timing);
+        table.setMetrics(metrics);
+        table.setSeed(seed);
+        table.setJournal(journal);
+        if (telemetry != null) telemetry.setTable(table.getPhilosophers(), table.getChopsticks(), n);
+
+        Thread[] threads = new Thread[n];
+        for (int i = 0; i < n; ++i)
+        {
+            threads[i] = executionMode.newThread(table.getPhilosophers()[i], "Philosopher-" + i);
+            threads[i].start();
+        }
+
+        long start = clock.nanoTime();
+        clock.sleep(durationMs);
+        long meals = table.getTotalMeals();
+        double seconds = (clock.nanoTime() - start) / 1e9;
+
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join();
+
+        out.printf("%-10s %8d %10.2f %12.1f %12.1f %9.4f %10d%n", strategyName, n, meals / seconds,
+                metrics.getHungerMeanMillis(), metrics.getHungerP99Millis(), table.getFairness(), metrics.getTotalRetries());
+    }
+
+    public static void printHeader(PrintStream out)
+    {
+        out.printf("%-10s %8s %10s %12s %12s %9s %10s%n", "strategy", "seats", "meals/s", "hunger ms", "p99 ms", "fairness", "retries");
+    }
+}
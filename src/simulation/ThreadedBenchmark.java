@@ -0,0 +1,105 @@
+package simulation;
+
+import models.DinerListener;
+import models.ExecutionMode;
+import models.Table;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+// Runs real Philosopher threads (no GUI) for a fixed wall-clock window and
+// measures meal throughput and how busy the CPUs running them were. In
+// virtual mode those CPUs are the carrier threads, so the utilization is
+// the carrier utilization.
+public class ThreadedBenchmark
+{
+    private final int n;
+    private final ExecutionMode executionMode;
+
+    public ThreadedBenchmark(int n, ExecutionMode executionMode)
+    {
+        this.n = n;
+        this.executionMode = executionMode;
+    }
+
+    public Result run(long durationMs) throws InterruptedException
+    {
+        Table table = new Table(n, DinerListener.NONE);
+        Thread[] threads = new Thread[n];
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < n; ++i)
+        {
+            threads[i] = executionMode.newThread(table.getPhilosophers()[i], "Philosopher-" + i);
+            threads[i].start();
+        }
+        long startupNanos = System.nanoTime() - startNanos;
+
+        long meals0 = table.getTotalMeals();
+        long cpu0 = processCpuNanos();
+        long wall0 = System.nanoTime();
+
+        Thread.sleep(durationMs);
+
+        long meals1 = table.getTotalMeals();
+        long cpu1 = processCpuNanos();
+        long wall1 = System.nanoTime();
+
+        for (Thread t : threads) t.interrupt();
+        for (Thread t : threads) t.join();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double utilization = cpu0 < 0 ? -1 : (double) (cpu1 - cpu0) / ((wall1 - wall0) * (double) cores);
+        return new Result(executionMode, n, meals1 - meals0, wall1 - wall0, startupNanos, utilization,
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    private static long processCpuNanos()
+    {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        return -1;
+    }
+
+    public static class Result
+    {
+        private final ExecutionMode executionMode;
+        private final int n;
+        private final long meals;
+        private final long wallNanos;
+        private final long startupNanos;
+        private final double utilization;
+        private final int peakPlatformThreads;
+
+        Result(ExecutionMode executionMode, int n, long meals, long wallNanos, long startupNanos,
+               double utilization, int peakPlatformThreads)
+        {
+            this.executionMode = executionMode;
+            this.n = n;
+            this.meals = meals;
+            this.wallNanos = wallNanos;
+            this.startupNanos = startupNanos;
+            this.utilization = utilization;
+            this.peakPlatformThreads = peakPlatformThreads;
+        }
+
+        public double getMealsPerSecond() { return meals / (wallNanos / 1e9); }
+        public double getUtilization() { return utilization; }
+
+        public static void printHeader(PrintStream out)
+        {
+            out.printf("%-9s %9s %10s %12s %10s %13s%n",
+                    "mode", "seats", "meals/s", "startup ms", "cpu util", "peak threads");
+        }
+
+        public void print(PrintStream out)
+        {
+            out.printf("%-9s %9d %10.1f %12.1f %9.1f%% %13d%n",
+                    executionMode.name().toLowerCase(), n, getMealsPerSecond(), startupNanos / 1e6,
+                    100 * utilization, peakPlatformThreads);
+        }
+    }
+}